@@ -0,0 +1,149 @@
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.media.Media;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Decodes images and opens audio on a pool of daemon threads, so assets load in parallel
+// and off the FX thread. Background loads hand their result back on the FX thread and are
+// counted, so the UI can show progress until everything has arrived.
+public class AssetLoader {
+
+    private final ExecutorService pool;
+
+    // Background load bookkeeping; FX thread only
+    private int total = 0;
+    private int pending = 0;
+    private Runnable onProgress;
+    private Runnable onAllLoaded;
+
+    public AssetLoader() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public AssetLoader(int threads) {
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "asset-loader");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Starts decoding an image; join() the result when it is needed right away
+    public CompletableFuture<Image> loadImage(String url) {
+        return CompletableFuture.supplyAsync(() -> {
+            GameEvents.AssetLoad event = new GameEvents.AssetLoad();
+            event.begin();
+            long start = System.nanoTime();
+            Image img = new Image(url); // Decodes synchronously on this worker thread
+            if (img.isError()) {
+                System.err.println("Error loading image " + url + ": " + img.getException());
+            }
+            commit(event, url, "image", !img.isError());
+            StartupTimeline.mark("loaded " + url + " (" + (System.nanoTime() - start) / 1_000_000 + " ms)");
+            return img;
+        }, pool);
+    }
+
+    public void loadImage(String url, Consumer<Image> onLoaded) {
+        track(url, loadImage(url), onLoaded);
+    }
+
+    public void loadMedia(String path, Consumer<Media> onLoaded) {
+        CompletableFuture<Media> media = CompletableFuture.supplyAsync(() -> {
+            GameEvents.AssetLoad event = new GameEvents.AssetLoad();
+            event.begin();
+            try {
+                Media m = new Media(new File(path).toURI().toString());
+                commit(event, path, "media", true);
+                StartupTimeline.mark("loaded " + path);
+                return m;
+            } catch (RuntimeException e) {
+                commit(event, path, "media", false);
+                throw e;
+            }
+        }, pool);
+        track(path, media, onLoaded);
+    }
+
+    // Decodes a sound effect to PCM for the SoundEngine
+    public void loadSound(String path, Consumer<SoundEngine.Sound> onLoaded) {
+        CompletableFuture<SoundEngine.Sound> sound = CompletableFuture.supplyAsync(() -> {
+            GameEvents.AssetLoad event = new GameEvents.AssetLoad();
+            event.begin();
+            long start = System.nanoTime();
+            try {
+                SoundEngine.Sound s = SoundEngine.decode(path);
+                commit(event, path, "sound", true);
+                StartupTimeline.mark("loaded " + path + " (" + (System.nanoTime() - start) / 1_000_000 + " ms)");
+                return s;
+            } catch (IOException e) {
+                commit(event, path, "sound", false);
+                throw new UncheckedIOException(e);
+            }
+        }, pool);
+        track(path, sound, onLoaded);
+    }
+
+    // Fraction of background loads that have finished, successfully or not
+    public double getProgress() {
+        return total == 0 ? 1.0 : (double) (total - pending) / total;
+    }
+
+    public boolean isDone() {
+        return pending == 0;
+    }
+
+    // Runs on the FX thread after each background load completes
+    public void setOnProgress(Runnable onProgress) {
+        this.onProgress = onProgress;
+    }
+
+    public void setOnAllLoaded(Runnable onAllLoaded) {
+        this.onAllLoaded = onAllLoaded;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static void commit(GameEvents.AssetLoad event, String path, String kind, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.kind = kind;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    private <T> void track(String name, CompletableFuture<T> load, Consumer<T> onLoaded) {
+        total++;
+        pending++;
+        load.whenComplete((asset, error) -> Platform.runLater(() -> {
+            pending--;
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                System.err.println("Failed to load " + name + ": " + cause.getMessage());
+            } else {
+                try {
+                    onLoaded.accept(asset);
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to apply " + name + ": " + e.getMessage());
+                }
+            }
+            if (onProgress != null) {
+                onProgress.run();
+            }
+            if (pending == 0 && onAllLoaded != null) {
+                onAllLoaded.run();
+            }
+        }));
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Runs many independent headless games in parallel and aggregates their scores.
+// Games are split into chunks on a ForkJoinPool; each chunk owns its simulation and
+// controller, and game i always uses the same seed, so results don't depend on scheduling.
+//
+// Usage: java BatchRunner [--games=N] [--threads=N] [--seed=N] [--max-ticks=N]
+//                         [--gravity=F] [--jump=F] [--gap=N]
+public class BatchRunner {
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    // Score distribution and throughput of a batch
+    public static class Stats {
+        private static final int BUCKETS = 1024; // Exact counts for scores below this
+
+        final long[] scoreCounts = new long[BUCKETS + 1]; // Last bucket collects higher scores
+        long games = 0;
+        long ticks = 0;
+        long scoreSum = 0;
+        int maxScore = 0;
+        double seconds = 0;
+
+        void add(int score, long gameTicks) {
+            scoreCounts[Math.min(score, BUCKETS)]++;
+            games++;
+            ticks += gameTicks;
+            scoreSum += score;
+            maxScore = Math.max(maxScore, score);
+        }
+
+        void merge(Stats other) {
+            for (int i = 0; i <= BUCKETS; i++) {
+                scoreCounts[i] += other.scoreCounts[i];
+            }
+            games += other.games;
+            ticks += other.ticks;
+            scoreSum += other.scoreSum;
+            maxScore = Math.max(maxScore, other.maxScore);
+        }
+
+        public long getGames() { return games; }
+        public long getTicks() { return ticks; }
+        public int getMaxScore() { return maxScore; }
+        public double getMeanScore() { return games == 0 ? 0 : (double) scoreSum / games; }
+        public double getGamesPerSecond() { return games / seconds; }
+        public double getTicksPerSecond() { return ticks / seconds; }
+
+        // Score at or below which the given fraction of games ended (scores >= 1024 report 1024)
+        public int getPercentile(double fraction) {
+            long rank = (long) Math.ceil(fraction * games);
+            long seen = 0;
+            for (int i = 0; i <= BUCKETS; i++) {
+                seen += scoreCounts[i];
+                if (seen >= rank && seen > 0) {
+                    return i;
+                }
+            }
+            return BUCKETS;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "games=%d mean=%.2f p50=%d p90=%d p99=%d max=%d | %.2f s, %.0f games/s, %.0f ticks/s",
+                games, getMeanScore(), getPercentile(0.5), getPercentile(0.9), getPercentile(0.99), maxScore,
+                seconds, getGamesPerSecond(), getTicksPerSecond());
+        }
+    }
+
+    // Seed of game i; spreads consecutive indices over the whole seed space
+    public static long gameSeed(long baseSeed, long game) {
+        long z = baseSeed + (game + 1) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Plays one game to death or maxTicks on a reused simulation and observation, returning its final tick
+    public static long playGame(GameSimulation sim, Observation obs, Controller controller, long seed, long maxTicks) {
+        sim.reset(seed);
+        while (sim.getTick() < maxTicks) {
+            obs.update(sim);
+            if (controller.shouldFlap(obs)) {
+                sim.flap();
+            }
+            if (sim.step()) {
+                break;
+            }
+        }
+        return sim.getTick();
+    }
+
+    public static Stats run(ForkJoinPool pool, int games, long baseSeed, long maxTicks,
+                            Supplier<Controller> controllers, Consumer<GameSimulation> setup) {
+        int chunks = Math.max(1, Math.min(games, pool.getParallelism() * CHUNKS_PER_THREAD));
+        List<Callable<Stats>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) games * c / chunks);
+            int to = (int) ((long) games * (c + 1) / chunks);
+            tasks.add(() -> {
+                GameSimulation sim = new GameSimulation();
+                setup.accept(sim);
+                Observation obs = new Observation();
+                Controller controller = controllers.get();
+                Stats stats = new Stats();
+                for (int g = from; g < to; g++) {
+                    long ticks = playGame(sim, obs, controller, gameSeed(baseSeed, g), maxTicks);
+                    stats.add(sim.getScore(), ticks);
+                }
+                return stats;
+            });
+        }
+
+        long start = System.nanoTime();
+        Stats total = new Stats();
+        try {
+            for (Future<Stats> result : pool.invokeAll(tasks)) {
+                total.merge(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch game failed", e.getCause());
+        }
+        total.seconds = (System.nanoTime() - start) / 1e9;
+        return total;
+    }
+
+    public static void main(String[] args) {
+        int games = 100_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 0;
+        long maxTicks = 60 * 60 * 5; // 5 minutes of play
+        float gravity = 0.5f;
+        float jump = -8;
+        int gap = GameSimulation.DEFAULT_OPENING_SPACE;
+
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length != 2) {
+                System.err.println("Ignoring argument " + arg);
+                continue;
+            }
+            switch (kv[0]) {
+                case "--games": games = Integer.parseInt(kv[1]); break;
+                case "--threads": threads = Integer.parseInt(kv[1]); break;
+                case "--seed": seed = Long.parseLong(kv[1]); break;
+                case "--max-ticks": maxTicks = Long.parseLong(kv[1]); break;
+                case "--gravity": gravity = Float.parseFloat(kv[1]); break;
+                case "--jump": jump = Float.parseFloat(kv[1]); break;
+                case "--gap": gap = Integer.parseInt(kv[1]); break;
+                default: System.err.println("Ignoring argument " + arg);
+            }
+        }
+
+        float g = gravity, j = jump;
+        int o = gap;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Stats stats = run(pool, games, seed, maxTicks, GapFollowerController::new, sim -> {
+            sim.setGravity(g);
+            sim.setJumpVelocity(j);
+            sim.setOpeningSpace(o);
+        });
+        pool.shutdown();
+
+        System.out.printf("gravity=%.2f jump=%.2f gap=%d threads=%d%n", gravity, jump, gap, threads);
+        System.out.println(stats);
+    }
+}
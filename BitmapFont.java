@@ -0,0 +1,171 @@
+import javafx.geometry.Bounds;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+// Pre-renders the digits 0-9 and a few fixed labels in one font and color into a glyph strip,
+// so numbers can be drawn digit by digit without building Strings or laying out text each frame.
+// Advances come from real text layout, so widths are exact for centering. Build on the FX thread.
+// A strip can also be rasterized by Java2D from an AWT font, which uses the JDK's own font code
+// rather than the platform text stack JavaFX needs, so headless tools can draw the HUD anywhere.
+public class BitmapFont {
+
+    private static final String DIGITS = "0123456789";
+    private static final int PAD = 2; // Room for glyph overhang around each cell
+
+    private final Image strip;
+    private final double ascent;
+    private final int cellHeight;
+
+    // Per glyph: digits first, then labels in the order given
+    private final double[] cellX;
+    private final double[] cellWidth;
+    private final double[] advance;
+
+    public BitmapFont(Font font, Color color, String... labels) {
+        String[] texts = glyphTexts(labels);
+        int count = texts.length;
+
+        // Measure with a Text node; its layout bounds start at -ascent above the baseline
+        Text measure = new Text(DIGITS);
+        measure.setFont(font);
+        Bounds line = measure.getLayoutBounds();
+        ascent = -line.getMinY();
+        cellHeight = (int) Math.ceil(line.getHeight()) + 2 * PAD;
+
+        advance = new double[count];
+        for (int i = 0; i < count; i++) {
+            measure.setText(texts[i]);
+            advance[i] = measure.getLayoutBounds().getWidth();
+        }
+        cellX = new double[count];
+        cellWidth = new double[count];
+        double x = layOut(advance, cellX, cellWidth);
+
+        Canvas canvas = new Canvas(Math.max(1, x), cellHeight);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFont(font);
+        gc.setFill(color);
+        for (int i = 0; i < count; i++) {
+            gc.fillText(texts[i], cellX[i] + PAD, PAD + ascent);
+        }
+
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        strip = canvas.snapshot(params, new WritableImage((int) Math.max(1, x), cellHeight));
+    }
+
+    public BitmapFont(java.awt.Font font, Color color, String... labels) {
+        String[] texts = glyphTexts(labels);
+        int count = texts.length;
+
+        Graphics2D g = createGraphics(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), font);
+        FontMetrics metrics = g.getFontMetrics();
+        ascent = metrics.getAscent();
+        cellHeight = metrics.getAscent() + metrics.getDescent() + 2 * PAD;
+        advance = new double[count];
+        for (int i = 0; i < count; i++) {
+            advance[i] = font.getStringBounds(texts[i], g.getFontRenderContext()).getWidth();
+        }
+        g.dispose();
+        cellX = new double[count];
+        cellWidth = new double[count];
+        int width = (int) Math.max(1, layOut(advance, cellX, cellWidth));
+
+        BufferedImage image = new BufferedImage(width, cellHeight, BufferedImage.TYPE_INT_ARGB);
+        g = createGraphics(image, font);
+        g.setColor(new java.awt.Color((float) color.getRed(), (float) color.getGreen(),
+            (float) color.getBlue(), (float) color.getOpacity()));
+        for (int i = 0; i < count; i++) {
+            g.drawString(texts[i], (float) (cellX[i] + PAD), (float) (PAD + ascent));
+        }
+        g.dispose();
+        WritableImage fxImage = new WritableImage(width, cellHeight);
+        fxImage.getPixelWriter().setPixels(0, 0, width, cellHeight, PixelFormat.getIntArgbInstance(),
+            image.getRGB(0, 0, width, cellHeight, null, 0, width), 0, width);
+        strip = fxImage;
+    }
+
+    // Digits first, then the labels
+    private static String[] glyphTexts(String[] labels) {
+        String[] texts = new String[DIGITS.length() + labels.length];
+        for (int i = 0; i < DIGITS.length(); i++) {
+            texts[i] = String.valueOf(DIGITS.charAt(i));
+        }
+        System.arraycopy(labels, 0, texts, DIGITS.length(), labels.length);
+        return texts;
+    }
+
+    // Places the glyph cells side by side; returns the strip width
+    private static double layOut(double[] advance, double[] cellX, double[] cellWidth) {
+        double x = 0;
+        for (int i = 0; i < advance.length; i++) {
+            cellX[i] = x;
+            cellWidth[i] = Math.ceil(advance[i]) + 2 * PAD;
+            x += cellWidth[i];
+        }
+        return x;
+    }
+
+    private static Graphics2D createGraphics(BufferedImage image, java.awt.Font font) {
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        g.setFont(font);
+        return g;
+    }
+
+    public double getAscent() { return ascent; }
+
+    public double getLabelWidth(int label) {
+        return advance[DIGITS.length() + label];
+    }
+
+    public double getNumberWidth(long value) {
+        value = Math.max(0, value);
+        double width = 0;
+        for (long divisor = highestPowerOfTen(value); divisor > 0; divisor /= 10) {
+            width += advance[(int) (value / divisor % 10)];
+        }
+        return width;
+    }
+
+    // Draws a label with its baseline at y and returns the x where the next glyph goes
+    public double drawLabel(GraphicsContext gc, int label, double x, double y) {
+        return drawGlyph(gc, DIGITS.length() + label, x, y);
+    }
+
+    // Draws a non-negative number most significant digit first; returns the x after the last digit
+    public double drawNumber(GraphicsContext gc, long value, double x, double y) {
+        value = Math.max(0, value);
+        for (long divisor = highestPowerOfTen(value); divisor > 0; divisor /= 10) {
+            x = drawGlyph(gc, (int) (value / divisor % 10), x, y);
+        }
+        return x;
+    }
+
+    private double drawGlyph(GraphicsContext gc, int glyph, double x, double y) {
+        gc.drawImage(strip, cellX[glyph], 0, cellWidth[glyph], cellHeight,
+            x - PAD, y - ascent - PAD, cellWidth[glyph], cellHeight);
+        return x + advance[glyph];
+    }
+
+    private static long highestPowerOfTen(long value) {
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        return divisor;
+    }
+}
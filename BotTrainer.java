@@ -0,0 +1,204 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Genetic algorithm that evolves NeuralController genomes by playing headless games.
+// Each generation every genome plays the same fresh set of seeds; the population is split
+// into chunks evaluated in parallel, each chunk reusing one simulation, observation and network.
+// The best genome found so far is saved after every improvement.
+//
+// Usage: java BotTrainer [--generations=N] [--population=N] [--games=N] [--max-ticks=N]
+//                        [--threads=N] [--seed=N] [--out=bot.txt]
+public class BotTrainer {
+
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int ELITES = 4;          // Copied unchanged into the next generation
+    private static final int TOURNAMENT_SIZE = 3;
+    private static final float MUTATION_RATE = 0.1f;
+    private static final float MUTATION_SCALE = 0.5f;
+
+    private final ForkJoinPool pool;
+    private final int gamesPerGenome;
+    private final long maxTicks;
+    private final long baseSeed;
+    private final SplittableRandom random;
+
+    private float[][] population;
+    private float[][] nextPopulation;
+    private final double[] fitness;
+
+    public BotTrainer(ForkJoinPool pool, int populationSize, int gamesPerGenome, long maxTicks, long seed) {
+        this.pool = pool;
+        this.gamesPerGenome = gamesPerGenome;
+        this.maxTicks = maxTicks;
+        this.baseSeed = seed;
+        this.random = new SplittableRandom(seed);
+
+        population = new float[populationSize][NeuralController.GENOME_SIZE];
+        nextPopulation = new float[populationSize][NeuralController.GENOME_SIZE];
+        fitness = new double[populationSize];
+        for (float[] genome : population) {
+            for (int i = 0; i < genome.length; i++) {
+                genome[i] = (float) (random.nextDouble() * 2 - 1);
+            }
+        }
+    }
+
+    // Plays every genome on this generation's seeds; fitness is mean ticks survived plus a bonus per pipe
+    public void evaluate(int generation) {
+        int size = population.length;
+        int chunks = Math.max(1, Math.min(size, pool.getParallelism() * CHUNKS_PER_THREAD));
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int from = size * c / chunks;
+            int to = size * (c + 1) / chunks;
+            tasks.add(() -> {
+                GameSimulation sim = new GameSimulation();
+                Observation obs = new Observation();
+                float[] weights = new float[NeuralController.GENOME_SIZE];
+                NeuralController controller = new NeuralController(weights);
+                for (int g = from; g < to; g++) {
+                    System.arraycopy(population[g], 0, weights, 0, weights.length);
+                    double total = 0;
+                    for (int k = 0; k < gamesPerGenome; k++) {
+                        long seed = BatchRunner.gameSeed(baseSeed, (long) generation * gamesPerGenome + k);
+                        long ticks = BatchRunner.playGame(sim, obs, controller, seed, maxTicks);
+                        total += ticks + 100.0 * sim.getScore();
+                    }
+                    fitness[g] = total / gamesPerGenome;
+                }
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Training interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Genome evaluation failed", e.getCause());
+        }
+    }
+
+    public int bestIndex() {
+        int best = 0;
+        for (int i = 1; i < fitness.length; i++) {
+            if (fitness[i] > fitness[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public double getFitness(int i) { return fitness[i]; }
+    public float[] getGenome(int i) { return population[i]; }
+
+    // Elitism, then tournament selection, uniform crossover and Gaussian mutation
+    public void breed() {
+        int size = population.length;
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+
+        int elites = Math.min(ELITES, size);
+        for (int i = 0; i < elites; i++) {
+            System.arraycopy(population[order[i]], 0, nextPopulation[i], 0, NeuralController.GENOME_SIZE);
+        }
+        for (int i = elites; i < size; i++) {
+            float[] a = population[tournament()];
+            float[] b = population[tournament()];
+            float[] child = nextPopulation[i];
+            for (int w = 0; w < child.length; w++) {
+                child[w] = random.nextBoolean() ? a[w] : b[w];
+                if (random.nextDouble() < MUTATION_RATE) {
+                    child[w] += (float) (gaussian() * MUTATION_SCALE);
+                }
+            }
+        }
+
+        float[][] swap = population;
+        population = nextPopulation;
+        nextPopulation = swap;
+    }
+
+    private int tournament() {
+        int best = random.nextInt(population.length);
+        for (int i = 1; i < TOURNAMENT_SIZE; i++) {
+            int candidate = random.nextInt(population.length);
+            if (fitness[candidate] > fitness[best]) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    // Box-Muller; SplittableRandom has no nextGaussian on JDK 17
+    private double gaussian() {
+        double u = 1.0 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int generations = 50;
+        int populationSize = 200;
+        int games = 4;
+        long maxTicks = 60 * 60 * 2; // 2 minutes of play
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        Path out = Paths.get("bot.txt");
+
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length != 2) {
+                System.err.println("Ignoring argument " + arg);
+                continue;
+            }
+            switch (kv[0]) {
+                case "--generations": generations = Integer.parseInt(kv[1]); break;
+                case "--population": populationSize = Integer.parseInt(kv[1]); break;
+                case "--games": games = Integer.parseInt(kv[1]); break;
+                case "--max-ticks": maxTicks = Long.parseLong(kv[1]); break;
+                case "--threads": threads = Integer.parseInt(kv[1]); break;
+                case "--seed": seed = Long.parseLong(kv[1]); break;
+                case "--out": out = Paths.get(kv[1]); break;
+                default: System.err.println("Ignoring argument " + arg);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        BotTrainer trainer = new BotTrainer(pool, populationSize, games, maxTicks, seed);
+        double bestEver = Double.NEGATIVE_INFINITY;
+        long start = System.nanoTime();
+
+        for (int gen = 0; gen < generations; gen++) {
+            trainer.evaluate(gen);
+            int best = trainer.bestIndex();
+            double bestFitness = trainer.getFitness(best);
+            if (bestFitness > bestEver) {
+                bestEver = bestFitness;
+                new NeuralController(trainer.getGenome(best).clone()).save(out);
+            }
+
+            double minutes = (System.nanoTime() - start) / 60e9;
+            System.out.printf("gen %d: best %.1f (best ever %.1f), %.1f generations/min%n",
+                gen, bestFitness, bestEver, (gen + 1) / minutes);
+            trainer.breed();
+        }
+        pool.shutdown();
+        System.out.println("Best genome saved to " + out);
+    }
+}
@@ -0,0 +1,106 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Pixel-exact collision shape of a sprite at the size it is drawn: one bit per solid pixel,
+// packed into a long per row (bit x is column x), so sprites can be at most 64 pixels wide.
+// Built once from the image's alpha channel; testing two masks ANDs each overlapping row of one
+// with the other's row shifted by their horizontal offset, a few instructions per row.
+public class CollisionMask {
+
+    public static final int MAX_WIDTH = 64;
+    private static final int ALPHA_THRESHOLD = 128; // Pixels at least half opaque are solid
+
+    private final int width;
+    private final int height;
+    private final long[] rows;
+
+    public CollisionMask(int width, int height, long[] rows) {
+        if (width < 1 || width > MAX_WIDTH || height < 1 || rows.length != height) {
+            throw new IllegalArgumentException("Bad mask size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.rows = rows;
+    }
+
+    // Mask of an ARGB image scaled to width x height, sampling the source pixel under each
+    // drawn pixel's centre
+    public static CollisionMask fromArgb(int[] argb, int srcWidth, int srcHeight, int width, int height) {
+        long[] rows = new long[height];
+        for (int y = 0; y < height; y++) {
+            int sy = (int) ((y + 0.5) * srcHeight / height);
+            long row = 0;
+            for (int x = 0; x < width; x++) {
+                int sx = (int) ((x + 0.5) * srcWidth / width);
+                if (argb[sy * srcWidth + sx] >>> 24 >= ALPHA_THRESHOLD) {
+                    row |= 1L << x;
+                }
+            }
+            rows[y] = row;
+        }
+        return new CollisionMask(width, height, rows);
+    }
+
+    // Decodes the image without JavaFX, for headless tools
+    public static CollisionMask load(Path file, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(file.toFile());
+        if (image == null) {
+            throw new IOException("Cannot decode " + file);
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        return fromArgb(image.getRGB(0, 0, w, h, null, 0, w), w, h, width, height);
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public long getRow(int y) { return rows[y]; }
+
+    // True if this mask placed at (x, y) and the other at (otherX, otherY) share a solid pixel
+    public boolean overlaps(int x, int y, CollisionMask other, int otherX, int otherY) {
+        int dx = otherX - x;
+        if (dx >= width || -dx >= other.width) {
+            return false;
+        }
+        int from = Math.max(y, otherY);
+        int to = Math.min(y + height, otherY + other.height);
+        for (int row = from; row < to; row++) {
+            long theirs = other.rows[row - otherY];
+            theirs = dx >= 0 ? theirs << dx : theirs >>> -dx; // Into this mask's columns
+            if ((rows[row - y] & theirs) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CollisionMask)) {
+            return false;
+        }
+        CollisionMask other = (CollisionMask) o;
+        return width == other.width && height == other.height && Arrays.equals(rows, other.rows);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * width + height) + Arrays.hashCode(rows);
+    }
+
+    // The mask as rows of '#' (solid) and '.', for checking it by eye
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (long row : rows) {
+            for (int x = 0; x < width; x++) {
+                text.append((row >>> x & 1) != 0 ? '#' : '.');
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
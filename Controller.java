@@ -0,0 +1,5 @@
+// Decides once per tick, before the simulation steps, whether the bird should flap.
+// Implementations may keep their own state but must not share it between games.
+public interface Controller {
+    boolean shouldFlap(Observation obs);
+}
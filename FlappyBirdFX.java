@@ -1,10 +1,11 @@
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Slider;
+import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.input.KeyCode;
@@ -16,11 +17,7 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import javafx.animation.AnimationTimer;
-import javafx.animation.KeyFrame;
 import javafx.animation.PauseTransition;
-import javafx.animation.Timeline;
-import javafx.scene.media.Media;
-import javafx.scene.media.MediaPlayer;
 import javafx.util.Duration;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
@@ -28,14 +25,47 @@ import javafx.scene.effect.DropShadow;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.Node;
 
-import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class FlappyBirdFX extends Application {
     
     // Game constants
-    private static final int BOARD_WIDTH = 360;
-    private static final int BOARD_HEIGHT = 640;
+    private static final int BOARD_WIDTH = GameSimulation.BOARD_WIDTH;
+    private static final int BOARD_HEIGHT = GameSimulation.BOARD_HEIGHT;
+    
+    // Asset files
+    private static final String IMAGE_DIR = "file:resources/images/";
+    private static final String AUDIO_DIR = "resources/audio/";
+    private static final String[] BACKGROUND_FILES = {
+        "bg_day.png", "bg_night.jpg", "bg_1.jpg", "bg_2.jpg", "bg_3.jpg", "bg_4.jpg", "bg_5.jpg"
+    };
+    private static final String[] BIRD_FILES = SpriteSet.BIRD_FILES;
+    private static final String[][] PIPE_FILES = SpriteSet.PIPE_FILES; // Pipe sets (0 = green, 1 = blue), top then bottom
+    private static final String[] MUSIC_FILES = {"backgroundmusic.mp3", "backgroundmusic2.mp3", "backgroundmusic3.mp3"};
+    private static final String[] FLAP_SOUND_FILES = {"flap.wav", "flap2.wav"};
+    private AssetLoader assetLoader;
+    
+    // Frame timing: histograms per run, an F3 overlay (with the seed) and a CSV log (--stats-csv=FILE)
+    private static final long OVERLAY_REFRESH_NANOS = 250_000_000L;
+    private final FrameStats frameStats = new FrameStats();
+    private Label statsOverlay;
+    private long lastOverlayRefresh;
+    private Path statsCsv;
+    
+    // Persistent leaderboard (--scores=FILE), opened in the background after startup
+    private Leaderboard leaderboard;
+    
+    // Score server that player games are also sent to (--submit=http://host:port), if any
+    private URI scoreServer;
+    private HttpClient httpClient;
     
     // Images
     private Image backgroundImg;
@@ -53,10 +83,9 @@ public class FlappyBirdFX extends Application {
     private Font gameFontSmall;
 
     // Audio
-    private MediaPlayer backgroundMusicPlayer;
-    private Media[] backgroundMusicFiles;
-    private MediaPlayer flapSoundPlayer;
-    private Media[] flapSoundFiles;
+    private MusicEngine musicEngine;
+    private SoundEngine soundEngine;
+    private SoundEngine.Sound[] flapSounds;
     
     // Settings UI
     private ImageView settingsIcon;
@@ -64,11 +93,14 @@ public class FlappyBirdFX extends Application {
     private ScrollPane settingsScrollPane;
     private Slider backgroundVolumeSlider;
     private Slider flapVolumeSlider;
+    private TextField seedField;
     private boolean settingsVisible = false;
     
     // Menu UI
     private VBox menuBox;
     private Button startButton;
+    private Button demoButton;
+    private Button practiceButton;
     private Button quitButton;
     
     // Preview images
@@ -76,24 +108,16 @@ public class FlappyBirdFX extends Application {
     private ImageView birdPreview;
     private ImageView pipePreview;
     
-    // Bird properties
-    private int birdX = BOARD_WIDTH / 8;
-    private float birdY = BOARD_HEIGHT / 2;
-    private int birdWidth = 34;
-    private int birdHeight = 35;
+    // Bird sizes per selection (paimon.png, bird.png)
+    private static final int[] BIRD_WIDTHS = SpriteSet.BIRD_WIDTHS;
+    private static final int[] BIRD_HEIGHTS = SpriteSet.BIRD_HEIGHTS;
     
-    // Pipe properties
-    private int pipeX = BOARD_WIDTH;
-    private int pipeY = 0;
-    private int pipeWidth = 64;
-    private int pipeHeight = 512;
+    // Pixel collision masks, decoded from the sprite files in the background (--pixel-collision=off uses boxes)
+    private boolean pixelCollision = true;
+    private CompletableFuture<Void> masksLoad;
     
     // Game state
-    private int velocityX = -2; // Pipe speed
-    private float velocityY = 0;
-    private float gravity = 0.5f;
     private boolean gameOver = false;
-    private double score = 0;
     private double highScore = 0;
     private boolean gameStarted = false;
     
@@ -104,154 +128,114 @@ public class FlappyBirdFX extends Application {
     private int currentMusic = 0;
     private int currentFlapSound = 0;
     
-    // Game objects
-    private Bird bird;
-    private ArrayList<Pipe> pipes;
+    // Game simulation (physics, pipes, scoring)
+    private GameSimulation sim;
+    private Replay replay; // Recording of the current run
+    private Controller autopilot; // Set while the bot plays (attract mode)
+    private final Observation observation = new Observation();
+    
+    // Practice mode: R rewinds REWIND_SECONDS, also after dying; these games aren't recorded
+    private static final int REWIND_SECONDS = 3;
+    private static final int REWIND_HISTORY_SECONDS = 10;
+    private static final int PRACTICE_GAME_OVER_SECONDS = 4; // Time to press R before the menu returns
+    private boolean practice = false;
+    private RewindBuffer rewindBuffer;
+    private PauseTransition gameOverDelay;
+    
+    // Fixed timestep loop (--tick-rate=N, --max-steps=N); physics are per tick, so the tick
+    // rate sets the game speed
+    private int tickRate = 60; // Simulation ticks per second
+    private int maxStepsPerFrame = 5; // Catch-up limit after a long frame
+    private long tickNanos;
+    private long lastPulse = 0;
+    private long accumulator = 0;
     
     // JavaFX components
     private Canvas canvas;
-    private GraphicsContext gc;
+    private GameRenderer renderer;
     private AnimationTimer gameLoop;
-    private Timeline placePipeTimeline;
     private Pane root;
     private Stage primaryStage;
     
-    private Media gameOverSound;
-    private MediaPlayer gameOverPlayer;
+    private SoundEngine.Sound gameOverSound;
 
     private Image gameOverImg;
 
-    // Bird class
-    class Bird {
-        int x = birdX;
-        float y = birdY;
-        int width = birdWidth;
-        int height = birdHeight;
-        Image img;
-        
-        Bird(Image img) {
-            this.img = img;
-        }
-    }
-    
-    // Pipe class
-    class Pipe {
-        int x = pipeX;
-        int y = pipeY;
-        int width = pipeWidth;
-        int height = pipeHeight;
-        Image img;
-        boolean passed = false;
-        
-        Pipe(Image img) {
-            this.img = img;
-        }
-    }
-    
     @Override
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
-        try {
-            // Load logo
-            logoImg = new Image("file:resources/images/flappypaimon.png");
-            
-            // Load images with all 7 backgrounds
-            backgroundImages = new Image[] {
-                new Image("file:resources/images/bg_day.png"),
-                new Image("file:resources/images/bg_night.jpg"),
-                new Image("file:resources/images/bg_1.jpg"),
-                new Image("file:resources/images/bg_2.jpg"),
-                new Image("file:resources/images/bg_3.jpg"),
-                new Image("file:resources/images/bg_4.jpg"),
-                new Image("file:resources/images/bg_5.jpg")
-            };
-            backgroundImg = backgroundImages[0];
-            
-            birdImages = new Image[] {
-                new Image("file:resources/images/paimon.png"),
-                new Image("file:resources/images/bird.png")
-            };
-            birdImg = birdImages[0];
-            
-            // Pipe sets (0 = green, 1 = blue)
-            pipeImages = new Image[2][2];
-            pipeImages = new Image[2][2];
-            pipeImages[0][0] = new Image("file:resources/images/toppipe.png"); // green top
-            pipeImages[0][1] = new Image("file:resources/images/bottompipe.png"); // green bottom
-            pipeImages[1][0] = new Image("file:resources/images/toppipe_blue.png"); // blue top
-            pipeImages[1][1] = new Image("file:resources/images/bottompipe_blue.png"); // blue bottom
-            topPipeImg = pipeImages[0][0];
-            bottomPipeImg = pipeImages[0][1];
-            
-            // Load settings icon
-            settingsImg = new Image("file:resources/images/settings.png");
-
-            // Load game over image
-            try {
-                // Load game over image using direct file path like other images
-                gameOverImg = new Image("file:resources/images/paimon_defeated.png");
-                
-                if (gameOverImg.isError()) {
-                    System.err.println("Error loading game over image: " + gameOverImg.getException());
-                }
-            } catch (Exception e) {
-                System.err.println("Failed to load game over image: " + e.getMessage());
-                gameOverImg = null;
-            }
-
-            // Load audio files
-            backgroundMusicFiles = new Media[] {
-                new Media(new File("resources/audio/backgroundmusic.mp3").toURI().toString()),
-                new Media(new File("resources/audio/backgroundmusic2.mp3").toURI().toString()),
-                new Media(new File("resources/audio/backgroundmusic3.mp3").toURI().toString())
-            };
-            
-            flapSoundFiles = new Media[] {
-                new Media(new File("resources/audio/flap.wav").toURI().toString()),
-                new Media(new File("resources/audio/flap2.wav").toURI().toString())
-            };
-
-            gameOverSound = new Media(new File("resources/audio/gameover.wav").toURI().toString());
-            gameOverPlayer = new MediaPlayer(gameOverSound);
-            gameOverPlayer.setVolume(0.5);
-
-            // Load the custom font
-            gameFont = Font.loadFont("file:resources/fonts/zh-cn.ttf", 30);
-            gameFontSmall = Font.loadFont("file:resources/fonts/zh-cn.ttf", 24);
-            
-            // Fallback to system font if custom font fails to load
-            if (gameFont == null) {
-                gameFont = new Font(32);
-                gameFontSmall = new Font(24);
-            }
-
-            // Initialize audio players
-            backgroundMusicPlayer = new MediaPlayer(backgroundMusicFiles[0]);
-            flapSoundPlayer = new MediaPlayer(flapSoundFiles[0]);
-            
-            // Set background music to loop with higher volume
-            backgroundMusicPlayer.setCycleCount(MediaPlayer.INDEFINITE);
-            backgroundMusicPlayer.setVolume(1.0); // Maximum volume
-            
-            // Add error listeners
-            backgroundMusicPlayer.setOnError(() -> 
-                System.err.println("Background music error: " + backgroundMusicPlayer.getError()));
-            flapSoundPlayer.setOnError(() -> 
-                System.err.println("Flap sound error: " + flapSoundPlayer.getError()));
-            
-        } catch (Exception e) {
-            System.err.println("Error loading resources: " + e.getMessage());
-            // Continue with reduced functionality if images fail to load
+        StartupTimeline.mark("start()");
+        assetLoader = new AssetLoader();
+        
+        backgroundImages = new Image[BACKGROUND_FILES.length];
+        birdImages = new Image[BIRD_FILES.length];
+        pipeImages = new Image[PIPE_FILES.length][2];
+        pixelCollision = !"off".equals(getParameters().getNamed().get("pixel-collision"));
+        if (pixelCollision) {
+            masksLoad = SpriteSet.loadMasksAsync();
+            masksLoad.exceptionally(e -> {
+                System.err.println("Pixel collision unavailable: " + e.getMessage());
+                return null;
+            });
+        }
+        tickRate = intParameter("tick-rate", tickRate, 1, 1000);
+        maxStepsPerFrame = intParameter("max-steps", maxStepsPerFrame, 1, 100);
+        tickNanos = 1_000_000_000L / tickRate;
+        musicEngine = new MusicEngine(MUSIC_FILES.length);
+        flapSounds = new SoundEngine.Sound[FLAP_SOUND_FILES.length];
+        soundEngine = SoundEngine.open();
+        
+        // Critical path: only what the first frame shows, decoded in parallel
+        CompletableFuture<Image> logoLoad = assetLoader.loadImage(IMAGE_DIR + "flappypaimon.png");
+        CompletableFuture<Image> settingsLoad = assetLoader.loadImage(IMAGE_DIR + "settings.png");
+        CompletableFuture<Image> backgroundLoad = assetLoader.loadImage(IMAGE_DIR + BACKGROUND_FILES[currentBackground]);
+        CompletableFuture<Image> birdLoad = assetLoader.loadImage(IMAGE_DIR + BIRD_FILES[currentBird]);
+        CompletableFuture<Image> topPipeLoad = assetLoader.loadImage(IMAGE_DIR + PIPE_FILES[currentPipes][0]);
+        CompletableFuture<Image> bottomPipeLoad = assetLoader.loadImage(IMAGE_DIR + PIPE_FILES[currentPipes][1]);
+        
+        // Load the custom font
+        gameFont = Font.loadFont("file:resources/fonts/zh-cn.ttf", 30);
+        gameFontSmall = Font.loadFont("file:resources/fonts/zh-cn.ttf", 24);
+        
+        // Fallback to system font if custom font fails to load
+        if (gameFont == null) {
+            gameFont = new Font(32);
+            gameFontSmall = new Font(24);
         }
         
-        // Initialize game objects
-        bird = new Bird(birdImg);
-        pipes = new ArrayList<>();
+        logoImg = logoLoad.join();
+        settingsImg = settingsLoad.join();
+        backgroundImages[currentBackground] = backgroundImg = backgroundLoad.join();
+        birdImages[currentBird] = birdImg = birdLoad.join();
+        pipeImages[currentPipes][0] = topPipeImg = topPipeLoad.join();
+        pipeImages[currentPipes][1] = bottomPipeImg = bottomPipeLoad.join();
+        StartupTimeline.mark("critical assets loaded");
         
-        // Set up the game canvas
+        // Initialize game simulation
+        sim = new GameSimulation();
+        
+        // Set up the game canvas. --layers=on splits it into background, moving sprites and HUD
+        // canvases; that touches a third of the pixels, but on the software pipeline compositing
+        // the layers costs more than it saves (benchmarks/baseline.txt), so one canvas is the default
         canvas = new Canvas(BOARD_WIDTH, BOARD_HEIGHT);
-        gc = canvas.getGraphicsContext2D();
-        root = new Pane(canvas);
+        if ("on".equals(getParameters().getNamed().get("layers"))) {
+            Canvas backgroundCanvas = new Canvas(BOARD_WIDTH, BOARD_HEIGHT);
+            Canvas hudCanvas = new Canvas(BOARD_WIDTH, BOARD_HEIGHT);
+            root = new Pane(backgroundCanvas, canvas, hudCanvas);
+            renderer = new GameRenderer(backgroundCanvas.getGraphicsContext2D(),
+                canvas.getGraphicsContext2D(), hudCanvas.getGraphicsContext2D());
+        } else {
+            root = new Pane(canvas);
+            renderer = new GameRenderer(canvas.getGraphicsContext2D());
+        }
+        
+        // Set up the renderer with the initial selections
+        renderer.setBackground(backgroundImg);
+        renderer.setBird(birdImg, BIRD_WIDTHS[currentBird], BIRD_HEIGHTS[currentBird]);
+        renderer.setPipes(topPipeImg, bottomPipeImg);
+        renderer.setLogo(logoImg);
+        renderer.setGameOverImage(gameOverImg);
+        renderer.setFont(gameFont);
         
         // Create menu UI
         createMenuUI();
@@ -259,6 +243,24 @@ public class FlappyBirdFX extends Application {
         // Create settings UI
         createSettingsUI();
         
+        // Frame timing overlay, hidden until F3 is pressed
+        statsOverlay = new Label();
+        statsOverlay.setStyle("-fx-font-family: monospace; -fx-font-size: 10; -fx-text-fill: white; " +
+                              "-fx-background-color: rgba(0, 0, 0, 0.6); -fx-padding: 4;");
+        statsOverlay.setLayoutX(4);
+        statsOverlay.setLayoutY(BOARD_HEIGHT - 76);
+        statsOverlay.setMouseTransparent(true);
+        statsOverlay.setVisible(false);
+        root.getChildren().add(statsOverlay);
+        String csvArg = getParameters().getNamed().get("stats-csv");
+        statsCsv = Paths.get(csvArg != null ? csvArg : "frame-stats.csv");
+        
+        // Fixed seed from the command line (--seed=N)
+        String seedArg = getParameters().getNamed().get("seed");
+        if (seedArg != null) {
+            seedField.setText(seedArg);
+        }
+        
         // Set up the scene
         Scene scene = new Scene(root, BOARD_WIDTH, BOARD_HEIGHT);
         primaryStage.setScene(scene);
@@ -267,16 +269,18 @@ public class FlappyBirdFX extends Application {
         
         // Set up keyboard controls
         scene.setOnKeyPressed(e -> {
-            if (e.getCode() == KeyCode.SPACE && gameStarted && !gameOver) {
-                // Play flap sound
-                if (flapSoundPlayer != null) {
-                    flapSoundPlayer.stop();
-                    flapSoundPlayer.play();
-                }
-                velocityY = -8; // Jump force
+            if (e.getCode() == KeyCode.SPACE && gameStarted && !gameOver && autopilot == null) {
+                flap();
+            } else if (e.getCode() == KeyCode.R && practice && gameStarted) {
+                rewind();
             } else if (e.getCode() == KeyCode.ESCAPE) {
                 // Toggle settings panel
                 toggleSettings();
+            } else if (e.getCode() == KeyCode.F3) {
+                // Toggle frame timing overlay
+                statsOverlay.setVisible(!statsOverlay.isVisible());
+                statsOverlay.setText(overlayText());
+                statsOverlay.toFront();
             }
         });
         
@@ -288,9 +292,142 @@ public class FlappyBirdFX extends Application {
             }
         });
         
+        // Everything else loads in the background
+        loadRemainingAssets();
+        openLeaderboard();
+        
         // Initial draw before game starts
         drawStartScreen();
         primaryStage.show();
+        StartupTimeline.mark("window shown");
+        
+        // Log time to first frame on the first pulse after showing the window
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                StartupTimeline.firstFrame();
+                stop();
+            }
+        }.start();
+    }
+    
+    // Scans the score file off the FX thread; the saved best replaces the session high score
+    private void openLeaderboard() {
+        String scoresArg = getParameters().getNamed().get("scores");
+        Path scoresFile = Paths.get(scoresArg != null ? scoresArg : "scores.db");
+        String submitArg = getParameters().getNamed().get("submit");
+        if (submitArg != null) {
+            scoreServer = URI.create(submitArg);
+            httpClient = HttpClient.newHttpClient();
+        }
+        Leaderboard.openAsync(scoresFile).whenComplete((board, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.err.println("Leaderboard unavailable: " + error.getMessage());
+                return;
+            }
+            leaderboard = board;
+            highScore = Math.max(highScore, board.getBestScore());
+            if (!gameStarted) {
+                drawStartScreen();
+            }
+        }));
+    }
+    
+    // Loads the other themes, the game over image and all audio off the FX thread
+    private void loadRemainingAssets() {
+        for (int i = 0; i < BACKGROUND_FILES.length; i++) {
+            int index = i;
+            if (index == currentBackground) continue;
+            assetLoader.loadImage(IMAGE_DIR + BACKGROUND_FILES[i], img -> {
+                backgroundImages[index] = img;
+                if (index == currentBackground) {
+                    backgroundImg = img;
+                    renderer.setBackground(img);
+                    backgroundPreview.setImage(img);
+                }
+            });
+        }
+        
+        for (int i = 0; i < BIRD_FILES.length; i++) {
+            int index = i;
+            if (index == currentBird) continue;
+            assetLoader.loadImage(IMAGE_DIR + BIRD_FILES[i], img -> {
+                birdImages[index] = img;
+                if (index == currentBird) {
+                    birdImg = img;
+                    renderer.setBird(img, BIRD_WIDTHS[currentBird], BIRD_HEIGHTS[currentBird]);
+                    birdPreview.setImage(img);
+                }
+            });
+        }
+        
+        for (int i = 0; i < PIPE_FILES.length; i++) {
+            int index = i;
+            if (index == currentPipes) continue;
+            for (int side = 0; side < 2; side++) {
+                int pipeSide = side;
+                assetLoader.loadImage(IMAGE_DIR + PIPE_FILES[i][side], img -> {
+                    pipeImages[index][pipeSide] = img;
+                    if (index == currentPipes) {
+                        topPipeImg = pipeImages[index][0];
+                        bottomPipeImg = pipeImages[index][1];
+                        renderer.setPipes(topPipeImg, bottomPipeImg);
+                        pipePreview.setImage(topPipeImg);
+                    }
+                });
+            }
+        }
+        
+        // Load game over image
+        assetLoader.loadImage(IMAGE_DIR + "paimon_defeated.png", img -> {
+            if (!img.isError()) {
+                gameOverImg = img;
+                renderer.setGameOverImage(img);
+            }
+        });
+        
+        // Load audio files
+        for (int i = 0; i < MUSIC_FILES.length; i++) {
+            int index = i;
+            assetLoader.loadMedia(AUDIO_DIR + MUSIC_FILES[i], media -> musicEngine.setTrack(index, media));
+        }
+        
+        for (int i = 0; i < FLAP_SOUND_FILES.length; i++) {
+            int index = i;
+            assetLoader.loadSound(AUDIO_DIR + FLAP_SOUND_FILES[i], sound -> flapSounds[index] = sound);
+        }
+        
+        assetLoader.loadSound(AUDIO_DIR + "gameover.wav", sound -> gameOverSound = sound);
+        
+        // Redraw the start screen as loading progresses
+        assetLoader.setOnProgress(() -> {
+            if (!gameStarted) {
+                drawStartScreen();
+            }
+        });
+        assetLoader.setOnAllLoaded(() -> {
+            StartupTimeline.mark("all assets loaded");
+            buildSpriteAtlas();
+        });
+    }
+    
+    // Packs every bird, pipe and game over sprite at its on-screen size into one texture
+    private void buildSpriteAtlas() {
+        SpriteAtlas.Builder builder = new SpriteAtlas.Builder();
+        for (int i = 0; i < birdImages.length; i++) {
+            builder.add(birdImages[i], BIRD_WIDTHS[i], BIRD_HEIGHTS[i]);
+        }
+        for (Image[] pipes : pipeImages) {
+            for (Image pipe : pipes) {
+                builder.add(pipe, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+            }
+        }
+        builder.add(gameOverImg, GameRenderer.GAME_OVER_IMG_SIZE, GameRenderer.GAME_OVER_IMG_SIZE);
+        
+        SpriteAtlas atlas = builder.build();
+        renderer.setAtlas(atlas);
+        StartupTimeline.mark("sprite atlas built (" + (int) atlas.getTexture().getWidth() + "x"
+            + (int) atlas.getTexture().getHeight() + ")");
     }
     
     private void createMenuUI() {
@@ -307,14 +444,39 @@ public class FlappyBirdFX extends Application {
                            "-fx-background-radius: 20;");
         startButton.setEffect(dropShadow);
         startButton.setOnAction(e -> {
+            autopilot = null;
+            practice = false;
+            gameStarted = true;
+            setupGame();
+            menuBox.setVisible(false);
+        });
+        
+        // Attract mode: the bot plays a game on its own
+        demoButton = new Button("Watch Bot");
+        demoButton.setStyle("-fx-font-size: 20; -fx-min-width: 150; -fx-min-height: 40; " +
+                          "-fx-background-color: #FF9800; -fx-text-fill: white; " +
+                          "-fx-background-radius: 20;");
+        demoButton.setEffect(dropShadow);
+        demoButton.setOnAction(e -> {
+            autopilot = loadBot();
+            practice = false;
+            gameStarted = true;
+            setupGame();
+            menuBox.setVisible(false);
+        });
+        
+        // Practice: a normal game that can be rewound with R
+        practiceButton = new Button("Practice");
+        practiceButton.setStyle("-fx-font-size: 20; -fx-min-width: 150; -fx-min-height: 40; " +
+                              "-fx-background-color: #4CAF50; -fx-text-fill: white; " +
+                              "-fx-background-radius: 20;");
+        practiceButton.setEffect(dropShadow);
+        practiceButton.setOnAction(e -> {
+            autopilot = null;
+            practice = true;
             gameStarted = true;
             setupGame();
             menuBox.setVisible(false);
-            // Start background music when game starts
-            if (backgroundMusicPlayer != null) {
-                backgroundMusicPlayer.seek(Duration.ZERO);
-                backgroundMusicPlayer.play();
-            }
         });
         
         quitButton = new Button("Quit Game");
@@ -324,7 +486,7 @@ public class FlappyBirdFX extends Application {
         quitButton.setEffect(dropShadow);
         quitButton.setOnAction(e -> primaryStage.close());
         
-        menuBox = new VBox(20, startButton, quitButton);
+        menuBox = new VBox(20, startButton, practiceButton, demoButton, quitButton);
         menuBox.setAlignment(Pos.CENTER);
         menuBox.setLayoutX(BOARD_WIDTH/2 - 75);
         menuBox.setLayoutY(BOARD_HEIGHT/2 + 90);
@@ -349,15 +511,15 @@ public class FlappyBirdFX extends Application {
         settingsIcon.setOnMouseClicked(this::toggleSettings);
         
         // Create preview images
-        backgroundPreview = new ImageView(backgroundImages[0]);
+        backgroundPreview = new ImageView(backgroundImg);
         backgroundPreview.setFitWidth(80);
         backgroundPreview.setFitHeight(60);
         
-        birdPreview = new ImageView(birdImages[0]);
+        birdPreview = new ImageView(birdImg);
         birdPreview.setFitWidth(40);
         birdPreview.setFitHeight(40);
         
-        pipePreview = new ImageView(pipeImages[0][0]);
+        pipePreview = new ImageView(topPipeImg);
         pipePreview.setFitWidth(40);
         pipePreview.setFitHeight(60);
         
@@ -380,13 +542,15 @@ public class FlappyBirdFX extends Application {
         VBox bgButtonsContainer = new VBox(5);
         HBox currentButtonRow = new HBox(5);
 
-        for (int i = 0; i < backgroundImages.length; i++) {
+        for (int i = 0; i < BACKGROUND_FILES.length; i++) {
             int index = i;
             Button btn = new Button(backgroundNames[i]);
             btn.setStyle(buttonStyle + "-fx-background-color: " + (currentBackground == index ? "#135A91" : "#2196F3") + ";");
             btn.setOnAction(e -> {
                 currentBackground = index;
+                GameEvents.settingChange("background", BACKGROUND_FILES[index]);
                 backgroundImg = backgroundImages[currentBackground];
+                renderer.setBackground(backgroundImg);
                 backgroundPreview.setImage(backgroundImg);
                 drawStartScreen();
                 
@@ -407,7 +571,7 @@ public class FlappyBirdFX extends Application {
             currentButtonRow.getChildren().add(btn);
             
             // Start new row after every 2 buttons
-            if (currentButtonRow.getChildren().size() >= 2 || i == backgroundImages.length - 1) {
+            if (currentButtonRow.getChildren().size() >= 2 || i == BACKGROUND_FILES.length - 1) {
                 bgButtonsContainer.getChildren().add(currentButtonRow);
                 currentButtonRow = new HBox(5);
             }
@@ -415,21 +579,18 @@ public class FlappyBirdFX extends Application {
         
         // Bird selection buttons
         HBox birdButtons = new HBox(5);
-        for (int i = 0; i < birdImages.length; i++) {
+        for (int i = 0; i < BIRD_FILES.length; i++) {
             int index = i;
             Button btn = new Button(i == 0 ? "Paimon" : "Bird");
             btn.setStyle(buttonStyle + "-fx-background-color: " + (currentBird == index ? "#b56e05" : "#FF9800") + ";");
             btn.setOnAction(e -> {
                 currentBird = index;
+                GameEvents.settingChange("bird", BIRD_FILES[index]);
                 birdImg = birdImages[currentBird];
-                bird.img = birdImg;
-                // Adjust bird dimensions based on selection
-                if (currentBird == 1) { // flappybird.png
-                    bird.width = 34;
-                    bird.height = 24;
-                } else { // paimon.png
-                    bird.width = 34;
-                    bird.height = 35;
+                renderer.setBird(birdImg, BIRD_WIDTHS[currentBird], BIRD_HEIGHTS[currentBird]);
+                // The hitbox stays fixed during a run so its replay remains valid
+                if (!gameStarted || gameOver) {
+                    applyBirdSize();
                 }
                 birdPreview.setImage(birdImg);
                 // Update button colors
@@ -444,19 +605,17 @@ public class FlappyBirdFX extends Application {
         // Pipe selection buttons
         HBox pipeButtons = new HBox(5);
         String[] pipeNames = {"Green", "Blue"};
-        for (int i = 0; i < pipeImages.length; i++) {
+        for (int i = 0; i < PIPE_FILES.length; i++) {
             int index = i;
             Button btn = new Button(pipeNames[i]);
             btn.setStyle(buttonStyle + "-fx-background-color: " + (currentPipes == index ? "#357938" : "#4CAF50") + ";");
             btn.setOnAction(e -> {
                 currentPipes = index;
+                GameEvents.settingChange("pipes", PIPE_FILES[index][0]);
                 topPipeImg = pipeImages[currentPipes][0];
                 bottomPipeImg = pipeImages[currentPipes][1];
+                renderer.setPipes(topPipeImg, bottomPipeImg);
                 pipePreview.setImage(topPipeImg);
-                // Update existing pipes
-                for (Pipe pipe : pipes) {
-                    pipe.img = pipe.y < BOARD_HEIGHT/2 ? topPipeImg : bottomPipeImg;
-                }
                 // Update button colors
                 for (int j = 0; j < pipeButtons.getChildren().size(); j++) {
                     Button b = (Button)pipeButtons.getChildren().get(j);
@@ -468,19 +627,14 @@ public class FlappyBirdFX extends Application {
         
         // Music selection buttons
         HBox musicButtons = new HBox(5);
-        for (int i = 0; i < backgroundMusicFiles.length; i++) {
+        for (int i = 0; i < MUSIC_FILES.length; i++) {
             int index = i;
             Button btn = new Button("Music " + (i+1));
             btn.setStyle(buttonStyle + "-fx-background-color: " + (currentMusic == index ? "#661a87" : "#9C27B0") + ";");
             btn.setOnAction(e -> {
                 currentMusic = index;
-                backgroundMusicPlayer.stop();
-                backgroundMusicPlayer = new MediaPlayer(backgroundMusicFiles[currentMusic]);
-                backgroundMusicPlayer.setCycleCount(MediaPlayer.INDEFINITE);
-                backgroundMusicPlayer.setVolume(backgroundVolumeSlider.getValue());
-                if (gameStarted && !gameOver) {
-                    backgroundMusicPlayer.play();
-                }
+                GameEvents.settingChange("music", MUSIC_FILES[index]);
+                musicEngine.select(index);
                 // Update button colors
                 for (int j = 0; j < musicButtons.getChildren().size(); j++) {
                     Button b = (Button)musicButtons.getChildren().get(j);
@@ -492,15 +646,13 @@ public class FlappyBirdFX extends Application {
         
         // Flap sound selection buttons
         HBox flapButtons = new HBox(5);
-        for (int i = 0; i < flapSoundFiles.length; i++) {
+        for (int i = 0; i < FLAP_SOUND_FILES.length; i++) {
             int index = i;
             Button btn = new Button("Sound " + (i+1));
             btn.setStyle(buttonStyle + "-fx-background-color: " + (currentFlapSound == index ? "#a91750" : "#E91E63") + ";");
             btn.setOnAction(e -> {
                 currentFlapSound = index;
-                flapSoundPlayer.stop();
-                flapSoundPlayer = new MediaPlayer(flapSoundFiles[currentFlapSound]);
-                flapSoundPlayer.setVolume(flapVolumeSlider.getValue());
+                GameEvents.settingChange("flap sound", FLAP_SOUND_FILES[index]);
                 // Update button colors
                 for (int j = 0; j < flapButtons.getChildren().size(); j++) {
                     Button b = (Button)flapButtons.getChildren().get(j);
@@ -515,19 +667,21 @@ public class FlappyBirdFX extends Application {
         backgroundVolumeSlider.setPrefWidth(150);
         backgroundVolumeSlider.setStyle("-fx-control-inner-background: #9C27B0; -fx-accent: white;");
         backgroundVolumeSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
-            if (backgroundMusicPlayer != null) {
-                backgroundMusicPlayer.setVolume(newVal.doubleValue());
-            }
+            musicEngine.setVolume(newVal.doubleValue());
+            GameEvents.settingChange("music volume", newVal);
         });
         
         flapVolumeSlider = new Slider(0, 1, 0.5);
         flapVolumeSlider.setPrefWidth(150);
         flapVolumeSlider.setStyle("-fx-control-inner-background: #E91E63; -fx-accent: white;");
-        flapVolumeSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
-            if (flapSoundPlayer != null) {
-                flapSoundPlayer.setVolume(newVal.doubleValue());
-            }
-        });
+        flapVolumeSlider.valueProperty().addListener((obs, oldVal, newVal) ->
+            GameEvents.settingChange("flap volume", newVal));
+        
+        // Seed for the pipe layout; blank picks a new random seed every game
+        seedField = new TextField();
+        seedField.setPromptText("Random");
+        seedField.setPrefWidth(150);
+        seedField.setStyle("-fx-font-size: 12; -fx-background-radius: 10;");
         
         // Create title for settings panel
         Label titleLabel = new Label("Game Settings");
@@ -558,6 +712,9 @@ public class FlappyBirdFX extends Application {
         Label flapVolLabel = new Label("Flap Volume:");
         flapVolLabel.setStyle(labelStyle);
         
+        Label seedLabel = new Label("Seed:");
+        seedLabel.setStyle(labelStyle);
+        
         // Container for preview images with border and padding
         HBox bgPreviewBox = new HBox(10, bgButtonsContainer, backgroundPreview);
         bgPreviewBox.setStyle("-fx-padding: 5; -fx-background-color: rgba(33, 150, 243, 0.3); -fx-background-radius: 5;");
@@ -577,7 +734,8 @@ public class FlappyBirdFX extends Application {
             musicLabel, musicButtons,
             flapLabel, flapButtons,
             bgVolLabel, backgroundVolumeSlider,
-            flapVolLabel, flapVolumeSlider
+            flapVolLabel, flapVolumeSlider,
+            seedLabel, seedField
         );
         settingsPanel.setAlignment(Pos.TOP_LEFT);
         settingsPanel.setStyle("-fx-padding: 15;");
@@ -719,74 +877,120 @@ public class FlappyBirdFX extends Application {
     }
     
     private void resetGame() {
-        bird.y = birdY;
-        velocityY = 0;
-        pipes.clear();
+        sim.reset();
         gameOver = false;
-        score = 0;
         gameStarted = false;
         menuBox.setVisible(true);
         settingsIcon.setVisible(true);
         drawStartScreen();
     }
     
+    // Adjust bird dimensions and collision masks based on selection. The same SpriteSet masks
+    // are used to verify the game's replay; a game started before they are decoded uses boxes.
+    private void applyBirdSize() {
+        boolean masks = masksLoad != null && masksLoad.isDone() && !masksLoad.isCompletedExceptionally();
+        try {
+            SpriteSet.apply(sim, currentBird, currentPipes, masks);
+        } catch (IOException e) {
+            System.err.println("Pixel collision unavailable: " + e.getMessage());
+            sim.setCollisionMasks(null, null, null);
+        }
+    }
+    
+    // Seed from the settings field, or a random one if it is blank or invalid
+    private long nextSeed() {
+        String text = seedField.getText().trim();
+        if (!text.isEmpty()) {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid seed \"" + text + "\", using a random one");
+            }
+        }
+        return ThreadLocalRandom.current().nextLong();
+    }
+    
     private void drawStartScreen() {
-        // Clear canvas before drawing
-        gc.clearRect(0, 0, BOARD_WIDTH, BOARD_HEIGHT);
-
-        // Draw background
-        gc.drawImage(backgroundImg, 0, 0, BOARD_WIDTH, BOARD_HEIGHT);
-        
-        // Draw logo at top center
-        if (logoImg != null) {
-            double logoWidth = BOARD_WIDTH;
-            double logoHeight = BOARD_HEIGHT;
-            gc.drawImage(logoImg, BOARD_WIDTH/2 - logoWidth/2, 0, logoWidth, logoHeight);
-        }
-        
-        // Draw high score at center
-        gc.setFill(Color.WHITE);
-        gc.setFont(gameFont);
-        String highScoreText = "High Score: " + (int) highScore;
-        double textWidth = gc.getFont().getSize() * highScoreText.length() * 0.6;
-        gc.fillText(highScoreText, BOARD_WIDTH/2 - textWidth/2, BOARD_HEIGHT/2 + 60);
+        renderer.drawStartScreen(highScore, assetLoader.getProgress());
     }
     
     private void setupGame() {
         // Stop any existing animations
         if (gameLoop != null) gameLoop.stop();
-        if (placePipeTimeline != null) placePipeTimeline.stop();
         
         // Hide settings icon during gameplay
         settingsIcon.setVisible(false);
         
-        // Reset background music
-        if (backgroundMusicPlayer != null) {
-            backgroundMusicPlayer.stop();
-            backgroundMusicPlayer.seek(Duration.ZERO);
-            backgroundMusicPlayer.play();
+        // Start a fresh game with the chosen seed
+        sim.reset(nextSeed());
+        applyBirdSize();
+        renderer.resetStats();
+        frameStats.reset();
+        replay = new Replay(sim.getSeed(), currentBird, currentPipes, sim.getBirdMask() != null);
+        if (practice) {
+            if (rewindBuffer == null) {
+                rewindBuffer = new RewindBuffer(REWIND_HISTORY_SECONDS * tickRate);
+            }
+            rewindBuffer.clear();
+            rewindBuffer.record(sim);
         }
-
-        // Set up pipe placement timeline
-        placePipeTimeline = new Timeline(
-            new KeyFrame(Duration.millis(1800), e -> placePipes())
-        );
-        placePipeTimeline.setCycleCount(Timeline.INDEFINITE);
-        placePipeTimeline.play();
         
+        // Fade the background music in from the start
+        musicEngine.start();
+
         // Set up game loop
+        lastPulse = 0;
+        accumulator = 0;
         gameLoop = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                move();
-                draw();
+                GameEvents.Frame frameEvent = GameEvents.beginFrame();
+                long pulseInterval = lastPulse == 0 ? 0 : now - lastPulse;
+                
+                // First pulse only establishes the time base
+                if (lastPulse == 0) {
+                    lastPulse = now;
+                } else {
+                    frameStats.recordPulse(now - lastPulse);
+                }
+                accumulator += now - lastPulse;
+                lastPulse = now;
+                
+                // Run as many fixed ticks as the elapsed time covers
+                long simStart = System.nanoTime();
+                int steps = 0;
+                while (accumulator >= tickNanos && steps < maxStepsPerFrame && !gameOver) {
+                    move();
+                    accumulator -= tickNanos;
+                    steps++;
+                }
+                long renderStart = System.nanoTime();
+                frameStats.recordSim(renderStart - simStart);
+                // Drop any backlog we could not catch up on instead of spiralling
+                if (accumulator >= tickNanos) {
+                    accumulator %= tickNanos;
+                }
+                
+                draw((double) accumulator / tickNanos);
+                frameStats.recordRender(System.nanoTime() - renderStart);
+                
+                GameEvents.endFrame(frameEvent, frameStats.getFrames(), steps, pulseInterval,
+                    sim.getPipePairCount(), sim.getScore());
+                
+                if (statsOverlay.isVisible() && now - lastOverlayRefresh >= OVERLAY_REFRESH_NANOS) {
+                    statsOverlay.setText(overlayText());
+                    lastOverlayRefresh = now;
+                }
                 if (gameOver) {
                     stop();
-                    placePipeTimeline.stop();
                     drawGameOver();
-                    if (backgroundMusicPlayer != null) {
-                        backgroundMusicPlayer.stop();
+                    statsOverlay.setText(overlayText());
+                    try {
+                        frameStats.appendCsv(statsCsv, sim.getSeed(), sim.getScore(), sim.getTick());
+                    } catch (IOException e) {
+                        System.err.println("Failed to write frame stats: " + e.getMessage());
                     }
+                    musicEngine.stop();
                     handleGameOver();  // Call handleGameOver instead of resetGame
                 }
             }
@@ -794,172 +998,180 @@ public class FlappyBirdFX extends Application {
         gameLoop.start();
     }
     
-    private void placePipes() {
-        int randomPipeY = (int)(pipeY - pipeHeight/3 - Math.random()*(pipeHeight/3));
-        int openingSpace = BOARD_HEIGHT/3;
-        
-        Pipe topPipe = new Pipe(topPipeImg);
-        topPipe.y = randomPipeY;
-        pipes.add(topPipe);
-        
-        Pipe bottomPipe = new Pipe(bottomPipeImg);
-        bottomPipe.y = topPipe.y + pipeHeight + openingSpace;
-        pipes.add(bottomPipe);
+    private void draw(double alpha) {
+        renderer.draw(sim, alpha);
     }
     
-    private void draw() {
-        // Clear canvas
-        gc.clearRect(0, 0, BOARD_WIDTH, BOARD_HEIGHT);
-        
-        // Draw background
-        gc.drawImage(backgroundImg, 0, 0, BOARD_WIDTH, BOARD_HEIGHT);
-        
-        // Draw bird
-        gc.drawImage(bird.img, bird.x, bird.y, bird.width, bird.height);
-        
-        // Draw pipes
-        for (Pipe pipe : pipes) {
-            gc.drawImage(pipe.img, pipe.x, pipe.y, pipe.width, pipe.height);
+    private void drawGameOver() {
+        renderer.drawGameOver(sim, highScore, practice);
+    }
+    
+    private void flap() {
+        // Play flap sound (overlaps earlier flaps instead of restarting them)
+        soundEngine.play(flapSounds[currentFlapSound], flapVolumeSlider.getValue());
+        // Practice games aren't saved, and after a rewind their ticks would run backwards
+        if (!practice) {
+            replay.recordFlap(sim.getTick());
         }
-        
-        // Draw score
-        gc.setFill(Color.WHITE);
-        gc.setFont(gameFont);
-        gc.fillText(String.valueOf((int)score), 10, 35);
+        sim.flap();
     }
     
-    private void drawGameOver() {
-        // First draw the full game state
-        draw();
-        
-        // Draw semi-transparent overlay
-        gc.setFill(new Color(0, 0, 0, 0.5));
-        gc.fillRect(0, 0, BOARD_WIDTH, BOARD_HEIGHT);
-        
-        // Draw defeated Paimon image centered
-        if (gameOverImg != null) {
-            double imgWidth = 220;
-            double imgHeight = 220;
-            double x = (BOARD_WIDTH - imgWidth) / 2;
-            double y = (BOARD_HEIGHT - imgHeight) / 2 - 100; // Move up by 100 pixels
-            
+    // Whole-number option --name=N within [min, max], or the default if absent or invalid
+    private int intParameter(String name, int defaultValue, int min, int max) {
+        String arg = getParameters().getNamed().get(name);
+        if (arg == null) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(arg.trim());
+            if (value >= min && value <= max) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.err.println("Invalid --" + name + "=" + arg + ", using " + defaultValue);
+        return defaultValue;
+    }
+    
+    // F3 overlay: the game's seed, so a run can be replayed from the settings, then frame timings
+    private String overlayText() {
+        return "seed   " + sim.getSeed() + "\n" + frameStats.getSummary();
+    }
+    
+    // Trained bot from --bot=FILE or bot.txt, falling back to the scripted pilot
+    private Controller loadBot() {
+        String botArg = getParameters().getNamed().get("bot");
+        Path botFile = Paths.get(botArg != null ? botArg : "bot.txt");
+        if (Files.exists(botFile)) {
             try {
-                gc.drawImage(gameOverImg, x, y, imgWidth, imgHeight);
-            } catch (Exception e) {
-                System.err.println("Failed to draw game over image: " + e.getMessage());
+                return NeuralController.load(botFile);
+            } catch (IOException e) {
+                System.err.println("Failed to load bot: " + e.getMessage());
             }
         }
-        
-        // Draw score text below the image
-        gc.setFill(Color.YELLOW);
-        gc.setFont(gameFont);
-        double textY = BOARD_HEIGHT/2 + 40; // Start text lower
-        
-        // Center align text
-        String gameOverText = "Game Over!!";
-        double textWidth = gc.getFont().getSize() * gameOverText.length() * 0.6;
-        gc.fillText(gameOverText, BOARD_WIDTH/2 - textWidth/2, textY);
-
-        gc.setFill(Color.GREENYELLOW);
-        String scoreText = "Score: " + (int)score;
-        textWidth = gc.getFont().getSize() * scoreText.length() * 0.6;
-        gc.fillText(scoreText, BOARD_WIDTH/2 - textWidth/2, textY + 40);
-
-        gc.setFill(Color.WHITE);
-        String highScoreText = "High Score: " + (int)highScore;
-        textWidth = gc.getFont().getSize() * highScoreText.length() * 0.6;
-        gc.fillText(highScoreText, BOARD_WIDTH/2 - textWidth/2, textY + 80);
+        return new GapFollowerController();
     }
     
     private void move() {
-        // Bird movement
-        if (gameStarted && !gameOver) {
-            velocityY += gravity;
-            bird.y += velocityY;
-            bird.y = Math.max(bird.y, 0);
-
-            // Check for collisions
-            for (Pipe pipe : pipes) {
-                if (collision(bird, pipe)) {
-                    handleGameOver();
-                    return;
-                }
-            }
-
-            // Check if bird hits ground
-            if (bird.y + bird.height > BOARD_HEIGHT) {
-                handleGameOver();
-                return;
-            }
-
-            // Update score
-            for (Pipe pipe : pipes) {
-                if (!pipe.passed && pipe.x + pipe.width < bird.x) {
-                    pipe.passed = true;
-                    score += 0.5; // Add 0.5 per pipe (1.0 per pair)
-                    if (score > highScore) {
-                        highScore = score;
-                    }
-                }
+        if (!gameStarted || gameOver) {
+            return;
+        }
+        GameEvents.Tick tickEvent = GameEvents.beginTick();
+        
+        // Let the bot decide before the tick, as a player's key press would
+        if (autopilot != null) {
+            observation.update(sim);
+            if (autopilot.shouldFlap(observation)) {
+                flap();
             }
         }
         
-        // Pipe movement
-        for (Pipe pipe : pipes) {
-            pipe.x += velocityX;
+        // Advance the simulation by one tick
+        boolean died = sim.step();
+        if (practice) {
+            rewindBuffer.record(sim);
+        }
+        GameEvents.endTick(tickEvent, sim.getTick(), sim.getPipePairCount(), sim.getScore());
+        if (died) {
+            handleGameOver();
+            return;
         }
         
-        // Remove off-screen pipes
-        pipes.removeIf(pipe -> pipe.x + pipe.width < 0);
+        // Update high score (bot and practice games don't count)
+        if (autopilot == null && !practice && sim.getScore() > highScore) {
+            highScore = sim.getScore();
+        }
     }
 
     private void handleGameOver() {
         if (!gameOver) {  // Only execute once
             gameOver = true;
+            GameEvents.gameOver(sim.getSeed(), sim.getScore(), sim.getTick(), autopilot != null);
             
-            // Play game over sound
-            if (gameOverPlayer != null) {
-                gameOverPlayer.stop();
-                gameOverPlayer.seek(Duration.ZERO);
-                gameOverPlayer.play();
+            // Save the replay of this run (a rewound practice game has no single valid replay)
+            replay.finish(sim.getTick(), sim.getScore());
+            if (autopilot == null && !practice) {
+                Path replayFile = Paths.get("replays", "replay-" + System.currentTimeMillis() + "-" + replay.getSeed() + ".fbr");
+                try {
+                    replay.save(replayFile);
+                } catch (IOException e) {
+                    System.err.println("Failed to save replay: " + e.getMessage());
+                }
+                if (leaderboard != null) {
+                    try {
+                        leaderboard.add(sim.getSeed(), sim.getScore(), sim.getTick());
+                    } catch (IOException e) {
+                        System.err.println("Failed to record score: " + e.getMessage());
+                    }
+                }
+                if (scoreServer != null) {
+                    ScoreServer.submit(httpClient, scoreServer, replay).whenComplete((response, error) -> {
+                        if (error != null) {
+                            System.err.println("Failed to submit score: " + error.getMessage());
+                        } else if (response.statusCode() != 200) {
+                            System.err.println("Score rejected: " + response.body().trim());
+                        }
+                    });
+                }
             }
             
+            // Play game over sound
+            soundEngine.play(gameOverSound, 0.5);
+            
             // Show menu after a short delay
-            PauseTransition delay = new PauseTransition(Duration.seconds(2));
-            delay.setOnFinished(event -> {
-                if (gameOverPlayer != null) {
-                    gameOverPlayer.stop();
-                }
+            gameOverDelay = new PauseTransition(Duration.seconds(practice ? PRACTICE_GAME_OVER_SECONDS : 2));
+            gameOverDelay.setOnFinished(event -> {
+                soundEngine.stop(gameOverSound);
                 resetGame();
                 menuBox.setVisible(true);
                 settingsIcon.setVisible(true);
             });
-            delay.play();
+            gameOverDelay.play();
         }
     }
-
-    private boolean collision(Bird a, Pipe b) {
-        int threshold = 5;
-        return a.x + a.width - threshold > b.x + threshold &&
-               a.x + threshold < b.x + b.width - threshold &&
-               a.y + a.height - threshold > b.y + threshold &&
-               a.y + threshold < b.y + b.height - threshold;
-    }
     
+    // Practice mode: goes back REWIND_SECONDS, or as far as the history reaches, and resumes
+    // play from there, also from the game over screen
+    private void rewind() {
+        long target = Math.max(rewindBuffer.getOldestTick(), sim.getTick() - REWIND_SECONDS * tickRate);
+        if (!rewindBuffer.restore(sim, target)) {
+            return;
+        }
+        if (gameOver) {
+            gameOverDelay.stop();
+            soundEngine.stop(gameOverSound);
+            gameOver = false;
+            musicEngine.start();
+            lastPulse = 0;
+            accumulator = 0;
+            gameLoop.start();
+        }
+    }
+
     @Override
     public void stop() {
         // Clean up resources
-        if (backgroundMusicPlayer != null) {
-            backgroundMusicPlayer.stop();
-            backgroundMusicPlayer.dispose();
+        if (musicEngine != null) {
+            musicEngine.dispose();
+        }
+        if (soundEngine != null) {
+            soundEngine.close();
+        }
+        if (assetLoader != null) {
+            assetLoader.shutdown();
         }
-        if (flapSoundPlayer != null) {
-            flapSoundPlayer.stop();
-            flapSoundPlayer.dispose();
+        if (leaderboard != null) {
+            try {
+                leaderboard.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close leaderboard: " + e.getMessage());
+            }
         }
     }
 
     public static void main(String[] args) {
+        StartupTimeline.mark("main()");
         launch(args);
     }
 }
\ No newline at end of file
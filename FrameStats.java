@@ -0,0 +1,76 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+// Frame pacing instrumentation for one run: time spent in simulation ticks and rendering per
+// frame, and the interval between animation pulses, each in a fixed-memory histogram.
+// Runs can be appended to a CSV file to compare machines and builds.
+public class FrameStats {
+
+    private static final String CSV_HEADER = "timestamp,seed,score,ticks,frames,"
+        + "sim_p50_us,sim_p99_us,sim_p999_us,sim_max_us,"
+        + "render_p50_us,render_p99_us,render_p999_us,render_max_us,"
+        + "pulse_p50_us,pulse_p99_us,pulse_p999_us,pulse_max_us";
+
+    private final TimingHistogram sim = new TimingHistogram();
+    private final TimingHistogram render = new TimingHistogram();
+    private final TimingHistogram pulse = new TimingHistogram();
+
+    public void recordSim(long nanos) { sim.record(nanos); }
+    public void recordRender(long nanos) { render.record(nanos); }
+    public void recordPulse(long nanos) { pulse.record(nanos); }
+
+    public long getFrames() { return render.getCount(); }
+
+    public void reset() {
+        sim.reset();
+        render.reset();
+        pulse.reset();
+    }
+
+    // Multi-line summary in milliseconds, for the overlay and the console
+    public String getSummary() {
+        return line("sim   ", sim) + "\n" + line("render", render) + "\n" + line("pulse ", pulse);
+    }
+
+    // Appends this run as one CSV row, writing the header first if the file is new
+    public void appendCsv(Path file, long seed, int score, long ticks) throws IOException {
+        StringBuilder row = new StringBuilder();
+        if (!Files.exists(file)) {
+            row.append(CSV_HEADER).append('\n');
+        }
+        row.append(System.currentTimeMillis()).append(',').append(seed).append(',')
+            .append(score).append(',').append(ticks).append(',').append(getFrames());
+        appendColumns(row, sim);
+        appendColumns(row, render);
+        appendColumns(row, pulse);
+        row.append('\n');
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, row.toString().getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static void appendColumns(StringBuilder row, TimingHistogram h) {
+        row.append(',').append(micros(h.getPercentile(0.5)))
+            .append(',').append(micros(h.getPercentile(0.99)))
+            .append(',').append(micros(h.getPercentile(0.999)))
+            .append(',').append(micros(h.getMax()));
+    }
+
+    private static String line(String name, TimingHistogram h) {
+        return String.format("%s p50 %6.2f  p99 %6.2f  p99.9 %6.2f  max %6.2f ms",
+            name, h.getPercentile(0.5) / 1e6, h.getPercentile(0.99) / 1e6,
+            h.getPercentile(0.999) / 1e6, h.getMax() / 1e6);
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e3); // Always '.' decimals in CSV
+    }
+}
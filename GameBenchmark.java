@@ -0,0 +1,460 @@
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntToLongFunction;
+
+// Micro-benchmarks for the simulation tick, collision, pipe spawn, replay and render paths.
+// The mask benchmarks load the sprites from resources/images, so run from the repository root.
+// Each benchmark is warmed up, then measured over fixed-length iterations, reporting
+// time per operation, throughput and bytes allocated per operation.
+//
+// Usage: java GameBenchmark [tick|collision|mask|spawn|replay|sound|sprites|render|all]
+//        java GameBenchmark check-alloc|check-advance
+// The checks pass or fail rather than measure, exiting with status 1 on failure: check-alloc that
+// steady-state ticks allocate nothing, check-advance that advance() leaves exactly the state
+// (GameSimulation.writeState) that step() does.
+// The render benchmark needs a JavaFX platform; without a display run it headless with
+//   -Dglass.platform=Monocle -Dmonocle.platform=Headless -Dprism.order=sw
+// and the openjfx-monocle jar on the classpath.
+// Reference numbers are kept in benchmarks/baseline.txt.
+public class GameBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURE_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 1_000_000_000L;
+    private static final int CHECK_TICKS = 10_000_000;
+    private static final int CHECK_GAMES = 500;
+
+    // HUD glyphs for the render benchmark, rasterized by Java2D so it runs without the platform
+    // text libraries JavaFX needs for layout
+    private static final java.awt.Font HUD_FONT = new java.awt.Font(java.awt.Font.SANS_SERIF, java.awt.Font.PLAIN, 30);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Keeps results alive so the JIT can't eliminate the benchmarked work
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        String which = args.length > 0 ? args[0] : "all";
+        boolean failed = false;
+
+        if (which.equals("tick") || which.equals("all")) {
+            GameSimulation sim = new GameSimulation();
+            run("tick", ops -> tick(sim, ops));
+        }
+        if (which.equals("collision") || which.equals("all")) {
+            GameSimulation sim = new GameSimulation();
+            run("collision", ops -> collision(sim, ops));
+        }
+        if (which.equals("mask") || which.equals("all")) {
+            GameSimulation boxes = new GameSimulation();
+            run("pair-boxes", ops -> pairCollision(boxes, ops));
+            GameSimulation masked = maskedSimulation();
+            run("pair-masks", ops -> pairCollision(masked, ops));
+            run("tick-masks", ops -> tick(masked, ops));
+        }
+        if (which.equals("spawn") || which.equals("all")) {
+            GameSimulation sim = new GameSimulation();
+            run("spawn", ops -> spawn(sim, ops));
+        }
+        if (which.equals("replay") || which.equals("all")) {
+            GameSimulation sim = new GameSimulation();
+            long[] flaps = recordBotGame(sim, 1, 6000);
+            System.out.println("(replayed game: " + sim.getTick() + " ticks, " + flaps.length + " flaps)");
+            run("replay-step", ops -> replay(sim, 1, flaps, 6000, false, ops));
+            run("replay-advance", ops -> replay(sim, 1, flaps, 6000, true, ops));
+        }
+        if (which.equals("sound") || which.equals("all")) {
+            runSound();
+        }
+        if (which.equals("sprites") || which.equals("render") || which.equals("all")) {
+            runRender(!which.equals("sprites"));
+        }
+        if (which.equals("check-alloc")) {
+            failed |= !checkAllocation("boxes", new GameSimulation());
+            failed |= !checkAllocation("masks", maskedSimulation());
+        }
+        if (which.equals("check-advance")) {
+            failed |= !checkAdvance("boxes", new GameSimulation(), new GameSimulation());
+            failed |= !checkAdvance("masks", maskedSimulation(), maskedSimulation());
+        }
+        System.out.println("(sink " + sink + ")");
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static GameSimulation maskedSimulation() throws IOException {
+        GameSimulation sim = new GameSimulation();
+        SpriteSet.apply(sim, 0, 0, true);
+        return sim;
+    }
+
+    // Plays CHECK_TICKS ticks of the gap-following pilot (spawns, pool recycling and scoring)
+    // after a warm-up and fails if the thread allocated any bytes meanwhile
+    private static boolean checkAllocation(String name, GameSimulation sim) {
+        long tid = Thread.currentThread().getId();
+        sink += tick(sim, CHECK_TICKS); // Warm-up, so class loading and the JIT are done
+        long before = THREADS.getThreadAllocatedBytes(tid);
+        sink += tick(sim, CHECK_TICKS);
+        long bytes = THREADS.getThreadAllocatedBytes(tid) - before;
+        System.out.printf("check-alloc %-6s %d ticks, %d bytes allocated: %s%n",
+            name, CHECK_TICKS, bytes, bytes == 0 ? "OK" : "FAILED");
+        return bytes == 0;
+    }
+
+    // Steps a game with a simple gap-following pilot so pipes and scoring stay active
+    private static long tick(GameSimulation sim, int ops) {
+        long score = 0;
+        for (int i = 0; i < ops; i++) {
+            if (sim.getPipePairCount() > 0) {
+                int next = sim.getPipeX(0) + GameSimulation.PIPE_WIDTH < GameSimulation.BIRD_X
+                    && sim.getPipePairCount() > 1 ? 1 : 0;
+                if (sim.getBirdY() + sim.getBirdHeight() > sim.getBottomPipeY(next) - 40 && sim.getVelocityY() > 0) {
+                    sim.flap();
+                }
+            } else if (sim.getBirdY() > GameSimulation.BOARD_HEIGHT / 2 && sim.getVelocityY() > 0) {
+                sim.flap();
+            }
+            if (sim.step()) {
+                score += sim.getScore();
+                sim.reset();
+            }
+        }
+        return score + sim.getTick();
+    }
+
+    // Narrow-phase AABB test against pipes sweeping across the bird
+    private static long collision(GameSimulation sim, int ops) {
+        long hits = 0;
+        for (int i = 0; i < ops; i++) {
+            int x = GameSimulation.BOARD_WIDTH - (i & 511);
+            int y = -(i & 255);
+            if (sim.collision(x, y)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    // Whole pipe pair test as step() runs it: inset boxes, or bounding boxes then masks
+    private static long pairCollision(GameSimulation sim, int ops) {
+        long hits = 0;
+        for (int i = 0; i < ops; i++) {
+            int x = GameSimulation.BOARD_WIDTH - (i & 511);
+            int y = -(i & 511);
+            if (sim.collidesWithPair(x, y)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    // Pipe pair placement; the pool recycles its oldest slot once full
+    private static long spawn(GameSimulation sim, int ops) {
+        for (int i = 0; i < ops; i++) {
+            sim.placePipes();
+        }
+        return sim.getTopPipeY(0);
+    }
+
+    // Plays a gap-following bot for up to maxTicks and returns the ticks it flapped on
+    private static long[] recordBotGame(GameSimulation sim, long seed, long maxTicks) {
+        Observation obs = new Observation();
+        Controller bot = new GapFollowerController();
+        long[] flaps = new long[(int) maxTicks];
+        int count = 0;
+        sim.reset(seed);
+        while (sim.getTick() < maxTicks) {
+            obs.update(sim);
+            if (bot.shouldFlap(obs)) {
+                flaps[count++] = sim.getTick();
+                sim.flap();
+            }
+            if (sim.step()) {
+                break;
+            }
+        }
+        return Arrays.copyOf(flaps, count);
+    }
+
+    // Re-simulates a recorded game, one step() per tick or fast-forwarding between flaps
+    private static long replay(GameSimulation sim, long seed, long[] flaps, long endTick, boolean advance, int ops) {
+        long score = 0;
+        for (int i = 0; i < ops; i++) {
+            sim.reset(seed);
+            boolean died = false;
+            int f = 0;
+            while (!died && sim.getTick() < endTick) {
+                if (f < flaps.length && flaps[f] == sim.getTick()) {
+                    sim.flap();
+                    f++;
+                }
+                if (advance) {
+                    long until = f < flaps.length ? flaps[f] : endTick;
+                    died = sim.advance((int) (until - sim.getTick()));
+                } else {
+                    died = sim.step();
+                }
+            }
+            score += sim.getScore();
+        }
+        return score;
+    }
+
+    // Plays CHECK_GAMES games on two simulations, one stepped tick by tick and one fast-forwarded
+    // with advance() between flaps, and compares their whole state after every flap gap. Half the
+    // games are long bot runs, half flap at random intervals and soon die on pipes or the ground.
+    private static boolean checkAdvance(String name, GameSimulation stepped, GameSimulation advanced) {
+        int[] expected = new int[GameSimulation.STATE_SIZE];
+        int[] actual = new int[GameSimulation.STATE_SIZE];
+        long gaps = 0;
+        long ticks = 0;
+        int deaths = 0;
+        for (int game = 0; game < CHECK_GAMES; game++) {
+            long[] flaps;
+            if (game % 2 == 0) {
+                flaps = recordBotGame(stepped, game, 6000);
+            } else {
+                SplittableRandom random = new SplittableRandom(game);
+                flaps = new long[200];
+                for (int f = 0; f < flaps.length; f++) {
+                    flaps[f] = (f == 0 ? 0 : flaps[f - 1]) + random.nextInt(8, 40);
+                }
+            }
+            long endTick = game % 2 == 0 ? 6000 : flaps[flaps.length - 1] + 200;
+            stepped.reset(game);
+            advanced.reset(game);
+            boolean died = false;
+            int f = 0;
+            while (!died && stepped.getTick() < endTick) {
+                if (f < flaps.length && flaps[f] == stepped.getTick()) {
+                    stepped.flap();
+                    advanced.flap();
+                    f++;
+                }
+                long until = f < flaps.length ? Math.min(flaps[f], endTick) : endTick;
+                boolean steppedDied = false;
+                while (!steppedDied && stepped.getTick() < until) {
+                    steppedDied = stepped.step();
+                }
+                died = advanced.advance((int) (until - advanced.getTick()));
+                stepped.writeState(expected);
+                advanced.writeState(actual);
+                gaps++;
+                if (died != steppedDied || !Arrays.equals(expected, actual)) {
+                    System.out.printf("check-advance %-6s FAILED: seed %d, tick %d, died %b vs %b%n  step()    %s%n  advance() %s%n",
+                        name, game, stepped.getTick(), steppedDied, died, Arrays.toString(expected), Arrays.toString(actual));
+                    return false;
+                }
+            }
+            ticks += stepped.getTick();
+            deaths += died ? 1 : 0;
+        }
+        System.out.printf("check-advance %-6s %d games, %d ticks, %d deaths, %d states compared: OK%n",
+            name, CHECK_GAMES, ticks, deaths, gaps);
+        return true;
+    }
+
+    // Frame rendering into an offscreen canvas. "sprites" compares drawing the background, pipes
+    // and bird scaled from the source images against blitting SpriteCache copies and drawing
+    // regions of a SpriteAtlas; "render" is a full GameRenderer frame including the HUD text,
+    // repainted on one canvas and then drawn incrementally on three layers.
+    private static void runRender(boolean fullFrame) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                Canvas canvas = new Canvas(GameSimulation.BOARD_WIDTH, GameSimulation.BOARD_HEIGHT);
+                GraphicsContext gc = canvas.getGraphicsContext2D();
+                Image background = new Image("file:resources/images/bg_1.jpg");
+                Image bird = new Image("file:resources/images/paimon.png");
+                Image topPipe = new Image("file:resources/images/toppipe.png");
+                Image bottomPipe = new Image("file:resources/images/bottompipe.png");
+
+                // Advance a game until a few pipes are on screen
+                GameSimulation sim = new GameSimulation();
+                tick(sim, 400);
+                WritableImage frame = new WritableImage(GameSimulation.BOARD_WIDTH, GameSimulation.BOARD_HEIGHT);
+
+                // Snapshot forces the canvas commands to be rasterized on every frame
+                run("sprites-scaled", ops -> {
+                    for (int i = 0; i < ops; i++) {
+                        drawSprites(gc, sim, background, bird, topPipe, bottomPipe, true);
+                        canvas.snapshot(null, frame);
+                    }
+                    return frame.getPixelReader().getArgb(0, 0);
+                });
+
+                SpriteCache cache = new SpriteCache();
+                Image backgroundSprite = cache.get(background, GameSimulation.BOARD_WIDTH, GameSimulation.BOARD_HEIGHT);
+                Image birdSprite = cache.get(bird, sim.getBirdWidth(), sim.getBirdHeight());
+                Image topSprite = cache.get(topPipe, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+                Image bottomSprite = cache.get(bottomPipe, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+                run("sprites-cached", ops -> {
+                    for (int i = 0; i < ops; i++) {
+                        drawSprites(gc, sim, backgroundSprite, birdSprite, topSprite, bottomSprite, false);
+                        canvas.snapshot(null, frame);
+                    }
+                    return frame.getPixelReader().getArgb(0, 0);
+                });
+
+                // Bird and pipes as sub-rectangles of one atlas texture
+                SpriteAtlas atlas = new SpriteAtlas.Builder()
+                    .add(bird, sim.getBirdWidth(), sim.getBirdHeight())
+                    .add(topPipe, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT)
+                    .add(bottomPipe, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT)
+                    .build();
+                SpriteAtlas.Region birdRegion = atlas.find(bird, sim.getBirdWidth(), sim.getBirdHeight());
+                SpriteAtlas.Region topRegion = atlas.find(topPipe, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+                SpriteAtlas.Region bottomRegion = atlas.find(bottomPipe, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+                run("sprites-atlas", ops -> {
+                    for (int i = 0; i < ops; i++) {
+                        gc.drawImage(backgroundSprite, 0, 0);
+                        atlas.draw(gc, birdRegion, GameSimulation.BIRD_X, sim.getBirdY());
+                        for (int p = 0; p < sim.getPipePairCount(); p++) {
+                            atlas.draw(gc, topRegion, sim.getPipeX(p), sim.getTopPipeY(p));
+                            atlas.draw(gc, bottomRegion, sim.getPipeX(p), sim.getBottomPipeY(p));
+                        }
+                        canvas.snapshot(null, frame);
+                    }
+                    return frame.getPixelReader().getArgb(0, 0);
+                });
+
+                if (fullFrame) {
+                    GameRenderer renderer = new GameRenderer(gc);
+                    renderer.setBackground(background);
+                    renderer.setBird(bird, sim.getBirdWidth(), sim.getBirdHeight());
+                    renderer.setPipes(topPipe, bottomPipe);
+                    renderer.setFont(HUD_FONT);
+                    run("render", ops -> {
+                        for (int i = 0; i < ops; i++) {
+                            renderer.draw(sim, (i & 7) / 8.0);
+                            canvas.snapshot(null, frame);
+                        }
+                        return frame.getPixelReader().getArgb(0, 0);
+                    });
+                    System.out.println("  " + renderer.getStatsSummary());
+
+                    // Same frames on stacked background, dynamic and HUD canvases
+                    Canvas backgroundLayer = new Canvas(GameSimulation.BOARD_WIDTH, GameSimulation.BOARD_HEIGHT);
+                    Canvas dynamicLayer = new Canvas(GameSimulation.BOARD_WIDTH, GameSimulation.BOARD_HEIGHT);
+                    Canvas hudLayer = new Canvas(GameSimulation.BOARD_WIDTH, GameSimulation.BOARD_HEIGHT);
+                    Group layers = new Group(backgroundLayer, dynamicLayer, hudLayer);
+                    GameRenderer layered = new GameRenderer(backgroundLayer.getGraphicsContext2D(),
+                        dynamicLayer.getGraphicsContext2D(), hudLayer.getGraphicsContext2D());
+                    layered.setBackground(background);
+                    layered.setBird(bird, sim.getBirdWidth(), sim.getBirdHeight());
+                    layered.setPipes(topPipe, bottomPipe);
+                    layered.setFont(HUD_FONT);
+                    run("render-layered", ops -> {
+                        for (int i = 0; i < ops; i++) {
+                            layered.draw(sim, (i & 7) / 8.0);
+                            layers.snapshot(null, frame);
+                        }
+                        return frame.getPixelReader().getArgb(0, 0);
+                    });
+                    System.out.println("  " + layered.getStatsSummary());
+                }
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        Platform.exit();
+    }
+
+    // Press-to-sound latency of the sound effect engine: rapid overlapping flaps, then game over
+    private static void runSound() throws Exception {
+        SoundEngine engine = SoundEngine.open();
+        SoundEngine.Sound flap = SoundEngine.decode("resources/audio/flap.wav");
+        SoundEngine.Sound gameOver = SoundEngine.decode("resources/audio/gameover.wav");
+        for (int i = 0; i < 100; i++) {
+            engine.play(flap, 0.5);
+            Thread.sleep(30);
+        }
+        engine.play(gameOver, 0.5);
+        Thread.sleep(100);
+        System.out.println(engine.getLatencySummary());
+        engine.close();
+    }
+
+    private static void drawSprites(GraphicsContext gc, GameSimulation sim, Image background, Image bird,
+                                    Image topPipe, Image bottomPipe, boolean scaled) {
+        int w = GameSimulation.PIPE_WIDTH;
+        int h = GameSimulation.PIPE_HEIGHT;
+        if (scaled) {
+            gc.drawImage(background, 0, 0, GameSimulation.BOARD_WIDTH, GameSimulation.BOARD_HEIGHT);
+            gc.drawImage(bird, GameSimulation.BIRD_X, sim.getBirdY(), sim.getBirdWidth(), sim.getBirdHeight());
+            for (int i = 0; i < sim.getPipePairCount(); i++) {
+                gc.drawImage(topPipe, sim.getPipeX(i), sim.getTopPipeY(i), w, h);
+                gc.drawImage(bottomPipe, sim.getPipeX(i), sim.getBottomPipeY(i), w, h);
+            }
+        } else {
+            gc.drawImage(background, 0, 0);
+            gc.drawImage(bird, GameSimulation.BIRD_X, sim.getBirdY());
+            for (int i = 0; i < sim.getPipePairCount(); i++) {
+                gc.drawImage(topPipe, sim.getPipeX(i), sim.getTopPipeY(i));
+                gc.drawImage(bottomPipe, sim.getPipeX(i), sim.getBottomPipeY(i));
+            }
+        }
+    }
+
+    private static void run(String name, IntToLongFunction benchmark) {
+        long tid = Thread.currentThread().getId();
+
+        // Calibrate a batch size that takes roughly 10 ms
+        int batch = 1;
+        while (true) {
+            long start = System.nanoTime();
+            sink += benchmark.applyAsLong(batch);
+            if (System.nanoTime() - start > 10_000_000L || batch >= (1 << 28)) {
+                break;
+            }
+            batch *= 2;
+        }
+
+        double[] nanosPerOp = new double[MEASURE_ITERATIONS];
+        double[] bytesPerOp = new double[MEASURE_ITERATIONS];
+        for (int iter = 0; iter < WARMUP_ITERATIONS + MEASURE_ITERATIONS; iter++) {
+            long ops = 0;
+            long bytesBefore = THREADS.getThreadAllocatedBytes(tid);
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                sink += benchmark.applyAsLong(batch);
+                ops += batch;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < ITERATION_NANOS);
+            long bytes = THREADS.getThreadAllocatedBytes(tid) - bytesBefore;
+
+            if (iter >= WARMUP_ITERATIONS) {
+                nanosPerOp[iter - WARMUP_ITERATIONS] = (double) elapsed / ops;
+                bytesPerOp[iter - WARMUP_ITERATIONS] = (double) bytes / ops;
+            }
+        }
+
+        double mean = 0, min = Double.MAX_VALUE, max = 0, bytes = 0;
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            mean += nanosPerOp[i] / MEASURE_ITERATIONS;
+            min = Math.min(min, nanosPerOp[i]);
+            max = Math.max(max, nanosPerOp[i]);
+            bytes += bytesPerOp[i] / MEASURE_ITERATIONS;
+        }
+        System.out.printf("%-10s %12.2f ns/op  [%.2f .. %.2f]  %14.0f ops/s  %10.2f B/op%n",
+            name, mean, min, max, 1e9 / mean, bytes);
+    }
+}
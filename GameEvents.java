@@ -0,0 +1,203 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Custom JDK Flight Recorder events for the game, so a recording from a player's machine
+// lines up frames and ticks with GC, JIT and audio activity. Record with
+//   java -XX:StartFlightRecording=filename=flappy.jfr FlappyBirdFX
+// and open the file in JDK Mission Control, or print it with `jfr print --categories "Flappy Bird"`.
+//
+// When no recording is running, isEnabled() is false and the JIT removes the event objects,
+// so the instrumentation costs next to nothing. Escape analysis doesn't always manage that, so
+// the helpers below don't create events at all until Flight Recorder has been initialized, which
+// keeps frames and ticks allocation-free. Duration events are split in two: beginFrame() and
+// beginTick() return null when there's nothing to record, and endFrame() and endTick() accept
+// it. Stack traces are off to keep commits cheap.
+public final class GameEvents {
+
+    private GameEvents() {
+    }
+
+    @Name("flappy.Frame")
+    @Label("Frame")
+    @Category("Flappy Bird")
+    @Description("One animation pulse: simulation ticks run plus rendering")
+    @StackTrace(false)
+    public static class Frame extends Event {
+        @Label("Frame") public long frame;
+        @Label("Ticks Run") public int steps;
+        @Label("Pulse Interval") @Timespan public long pulseInterval;
+        @Label("Pipe Pairs") public int pipePairs;
+        @Label("Score") public int score;
+    }
+
+    @Name("flappy.Tick")
+    @Label("Tick")
+    @Category("Flappy Bird")
+    @Description("One fixed simulation step, including the bot's decision")
+    @StackTrace(false)
+    public static class Tick extends Event {
+        @Label("Tick") public long tick;
+        @Label("Pipe Pairs") public int pipePairs;
+        @Label("Score") public int score;
+    }
+
+    @Name("flappy.PipeSpawn")
+    @Label("Pipe Spawn")
+    @Category("Flappy Bird")
+    @StackTrace(false)
+    public static class PipeSpawn extends Event {
+        @Label("Tick") public long tick;
+        @Label("Top Pipe Y") public int topY;
+        @Label("Pipe Pairs") public int pipePairs;
+    }
+
+    @Name("flappy.Collision")
+    @Label("Collision")
+    @Category("Flappy Bird")
+    @Description("The bird hit a pipe or the ground")
+    @StackTrace(false)
+    public static class Collision extends Event {
+        @Label("Tick") public long tick;
+        @Label("Cause") public String cause;
+        @Label("Bird Y") public float birdY;
+        @Label("Vertical Velocity") public float velocityY;
+    }
+
+    @Name("flappy.GameOver")
+    @Label("Game Over")
+    @Category("Flappy Bird")
+    @StackTrace(false)
+    public static class GameOver extends Event {
+        @Label("Seed") public long seed;
+        @Label("Score") public int score;
+        @Label("Ticks") public long ticks;
+        @Label("Bot") public boolean bot;
+    }
+
+    @Name("flappy.SettingChange")
+    @Label("Setting Change")
+    @Category("Flappy Bird")
+    @StackTrace(false)
+    public static class SettingChange extends Event {
+        @Label("Setting") public String setting;
+        @Label("Value") public String value;
+    }
+
+    @Name("flappy.AssetLoad")
+    @Label("Asset Load")
+    @Category("Flappy Bird")
+    @Description("Decoding or opening one image, sound or music file")
+    @StackTrace(false)
+    public static class AssetLoad extends Event {
+        @Label("Path") public String path;
+        @Label("Kind") public String kind;
+        @Label("Success") public boolean success;
+    }
+
+    // Starts timing a frame, or returns null if no recording has been started
+    public static Frame beginFrame() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        Frame event = new Frame();
+        event.begin();
+        return event;
+    }
+
+    public static void endFrame(Frame event, long frame, int steps, long pulseInterval, int pipePairs, int score) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.frame = frame;
+            event.steps = steps;
+            event.pulseInterval = pulseInterval;
+            event.pipePairs = pipePairs;
+            event.score = score;
+            event.commit();
+        }
+    }
+
+    // Starts timing a tick, or returns null if no recording has been started
+    public static Tick beginTick() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        Tick event = new Tick();
+        event.begin();
+        return event;
+    }
+
+    public static void endTick(Tick event, long tick, int pipePairs, int score) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = tick;
+            event.pipePairs = pipePairs;
+            event.score = score;
+            event.commit();
+        }
+    }
+
+    public static void pipeSpawn(long tick, int topY, int pipePairs) {
+        if (!FlightRecorder.isInitialized()) {
+            return; // No recording has been started
+        }
+        PipeSpawn event = new PipeSpawn();
+        if (event.isEnabled()) {
+            event.tick = tick;
+            event.topY = topY;
+            event.pipePairs = pipePairs;
+            event.commit();
+        }
+    }
+
+    public static void collision(long tick, String cause, float birdY, float velocityY) {
+        if (!FlightRecorder.isInitialized()) {
+            return; // No recording has been started
+        }
+        Collision event = new Collision();
+        if (event.isEnabled()) {
+            event.tick = tick;
+            event.cause = cause;
+            event.birdY = birdY;
+            event.velocityY = velocityY;
+            event.commit();
+        }
+    }
+
+    public static void gameOver(long seed, int score, long ticks, boolean bot) {
+        if (!FlightRecorder.isInitialized()) {
+            return; // No recording has been started
+        }
+        GameOver event = new GameOver();
+        if (event.isEnabled()) {
+            event.seed = seed;
+            event.score = score;
+            event.ticks = ticks;
+            event.bot = bot;
+            event.commit();
+        }
+    }
+
+    public static void settingChange(String setting, Object value) {
+        if (!FlightRecorder.isInitialized()) {
+            return; // No recording has been started
+        }
+        SettingChange event = new SettingChange();
+        if (event.isEnabled()) {
+            event.setting = setting;
+            event.value = String.valueOf(value);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,360 @@
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+// Draws the start screen, game frames and game over screen for a GameSimulation.
+// Works on any GraphicsContext, so it can also render into offscreen canvases.
+//
+// With three stacked canvases it renders in layers: the background is painted only when it
+// changes, the dynamic layer clears just the rectangles the bird and pipes covered last frame,
+// and the HUD is redrawn only when the score changes. With a single context every frame is a
+// full repaint. Either way it counts pixels touched and time spent per game frame.
+public class GameRenderer {
+
+    private static final int BOARD_WIDTH = GameSimulation.BOARD_WIDTH;
+    private static final int BOARD_HEIGHT = GameSimulation.BOARD_HEIGHT;
+    public static final int GAME_OVER_IMG_SIZE = 220;
+
+    // Score HUD area, cleared before the score is redrawn
+    private static final int HUD_WIDTH = 160;
+    private static final int HUD_HEIGHT = 50;
+
+    // Bird plus a top and bottom pipe for every pair on screen
+    private static final int MAX_SPRITES = 1 + 2 * GameSimulation.MAX_PIPE_PAIRS;
+
+    private static final int SCREEN_NONE = 0;
+    private static final int SCREEN_START = 1;
+    private static final int SCREEN_GAME = 2;
+    private static final int SCREEN_GAME_OVER = 3;
+
+    private final GraphicsContext backgroundGc;
+    private final GraphicsContext gc;
+    private final GraphicsContext hudGc;
+    private final boolean layered;
+    private final SpriteCache sprites = new SpriteCache();
+
+    // Images, pre-scaled to their on-screen size
+    private Image backgroundImg;
+    private Image birdImg;
+    private Image topPipeImg;
+    private Image bottomPipeImg;
+    private Image logoImg;
+    private Image gameOverImg;
+
+    // Source images and their regions in the sprite atlas, when one is set
+    private SpriteAtlas atlas;
+    private Image birdSrc, topPipeSrc, bottomPipeSrc, gameOverSrc;
+    private int birdWidth, birdHeight;
+    private SpriteAtlas.Region birdRegion, topPipeRegion, bottomPipeRegion, gameOverRegion;
+
+    // Glyph strips for the HUD: white digits, high score and rewind labels, the yellow game over
+    // line and the green-yellow final score line. Each label index belongs to the strip named in it
+    private static final int WHITE_HIGH_SCORE = 0;
+    private static final int WHITE_REWIND = 1;
+    private static final String[] WHITE_LABELS = {"High Score: ", "Press R to rewind"};
+    private static final int GAME_OVER_TITLE = 0;
+    private static final String[] GAME_OVER_LABELS = {"Game Over!!"};
+    private static final int SCORE_FINAL = 0;
+    private static final String[] SCORE_LABELS = {"Score: "};
+    private BitmapFont whiteText;
+    private BitmapFont gameOverText;
+    private BitmapFont scoreText;
+
+    // What the layers currently hold
+    private int screen = SCREEN_NONE;
+    private boolean backgroundDirty = true;
+    private int hudScore = -1;
+
+    // Rectangles drawn on the dynamic layer last frame, cleared before the next one
+    private final double[] dirtyX = new double[MAX_SPRITES];
+    private final double[] dirtyY = new double[MAX_SPRITES];
+    private final double[] dirtyW = new double[MAX_SPRITES];
+    private final double[] dirtyH = new double[MAX_SPRITES];
+    private int dirtyCount;
+
+    // Fill-rate and frame-time counters for game frames
+    private long frames;
+    private long pixelsTouched;
+    private long renderNanos;
+    private long framePixels;
+
+    // Single layer: every frame clears and repaints the whole board
+    public GameRenderer(GraphicsContext gc) {
+        this.backgroundGc = gc;
+        this.gc = gc;
+        this.hudGc = gc;
+        this.layered = false;
+    }
+
+    // Three layers, bottom to top; the canvases must be stacked in this order
+    public GameRenderer(GraphicsContext backgroundGc, GraphicsContext dynamicGc, GraphicsContext hudGc) {
+        this.backgroundGc = backgroundGc;
+        this.gc = dynamicGc;
+        this.hudGc = hudGc;
+        this.layered = true;
+    }
+
+    public void setBackground(Image img) {
+        backgroundImg = sprites.get(img, BOARD_WIDTH, BOARD_HEIGHT);
+        backgroundDirty = true;
+    }
+    public void setBird(Image img, int width, int height) {
+        birdSrc = img;
+        birdWidth = width;
+        birdHeight = height;
+        birdImg = sprites.get(img, width, height);
+        birdRegion = region(img, width, height);
+    }
+    public void setPipes(Image top, Image bottom) {
+        topPipeSrc = top;
+        bottomPipeSrc = bottom;
+        topPipeImg = sprites.get(top, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+        bottomPipeImg = sprites.get(bottom, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+        topPipeRegion = region(top, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+        bottomPipeRegion = region(bottom, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+    }
+    public void setLogo(Image img) { logoImg = sprites.get(img, BOARD_WIDTH, BOARD_HEIGHT); }
+    public void setGameOverImage(Image img) {
+        gameOverSrc = img;
+        gameOverImg = sprites.get(img, GAME_OVER_IMG_SIZE, GAME_OVER_IMG_SIZE);
+        gameOverRegion = region(img, GAME_OVER_IMG_SIZE, GAME_OVER_IMG_SIZE);
+    }
+    public void setFont(Font font) {
+        whiteText = new BitmapFont(font, Color.WHITE, WHITE_LABELS);
+        gameOverText = new BitmapFont(font, Color.YELLOW, GAME_OVER_LABELS);
+        scoreText = new BitmapFont(font, Color.GREENYELLOW, SCORE_LABELS);
+    }
+    // HUD text rasterized by Java2D, for headless rendering where JavaFX text layout is unavailable
+    public void setFont(java.awt.Font font) {
+        whiteText = new BitmapFont(font, Color.WHITE, WHITE_LABELS);
+        gameOverText = new BitmapFont(font, Color.YELLOW, GAME_OVER_LABELS);
+        scoreText = new BitmapFont(font, Color.GREENYELLOW, SCORE_LABELS);
+    }
+
+    // Draws packed sprites from the atlas; sprites it doesn't contain keep using their own images
+    public void setAtlas(SpriteAtlas atlas) {
+        this.atlas = atlas;
+        birdRegion = region(birdSrc, birdWidth, birdHeight);
+        topPipeRegion = region(topPipeSrc, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+        bottomPipeRegion = region(bottomPipeSrc, GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+        gameOverRegion = region(gameOverSrc, GAME_OVER_IMG_SIZE, GAME_OVER_IMG_SIZE);
+    }
+
+    private SpriteAtlas.Region region(Image src, int width, int height) {
+        return atlas == null || src == null ? null : atlas.find(src, width, height);
+    }
+
+    public void drawStartScreen(double highScore) {
+        drawStartScreen(highScore, 1.0);
+    }
+
+    // Start screen with a loading bar along the bottom while assets are still streaming in
+    public void drawStartScreen(double highScore, double loadProgress) {
+        enterScreen(SCREEN_START);
+
+        // Draw background (single layer: this also clears the canvas)
+        if (!layered || backgroundDirty) {
+            paintBackground();
+        }
+
+        // Draw logo at top center
+        if (logoImg != null) {
+            double logoWidth = BOARD_WIDTH;
+            double logoHeight = BOARD_HEIGHT;
+            blit(hudGc, logoImg, BOARD_WIDTH/2 - logoWidth/2, 0, logoWidth, logoHeight);
+        }
+
+        // Draw high score at center
+        drawCentered(whiteText, WHITE_HIGH_SCORE, (long) highScore, BOARD_HEIGHT/2 + 60);
+
+        // Draw loading progress
+        if (loadProgress < 1.0) {
+            hudGc.setFill(new Color(0, 0, 0, 0.5));
+            hudGc.fillRect(0, BOARD_HEIGHT - 6, BOARD_WIDTH, 6);
+            hudGc.setFill(Color.WHITE);
+            hudGc.fillRect(0, BOARD_HEIGHT - 6, BOARD_WIDTH * loadProgress, 6);
+        }
+    }
+
+    // Draws the game state interpolated between the last two ticks (alpha 0 = previous, 1 = current)
+    public void draw(GameSimulation sim, double alpha) {
+        long start = System.nanoTime();
+        framePixels = 0;
+        if (screen != SCREEN_GAME) {
+            enterScreen(SCREEN_GAME);
+        }
+
+        if (!layered) {
+            // Clear and repaint everything
+            paintBackground();
+        } else {
+            if (backgroundDirty) {
+                paintBackground();
+            }
+            // Erase only what was drawn last frame
+            for (int i = 0; i < dirtyCount; i++) {
+                gc.clearRect(dirtyX[i], dirtyY[i], dirtyW[i], dirtyH[i]);
+                framePixels += (long) (dirtyW[i] * dirtyH[i]);
+            }
+        }
+        dirtyCount = 0;
+
+        // Draw bird
+        double birdDrawY = sim.getPrevBirdY() + (sim.getBirdY() - sim.getPrevBirdY()) * alpha;
+        if (birdRegion != null && birdRegion.width == sim.getBirdWidth() && birdRegion.height == sim.getBirdHeight()) {
+            atlas.draw(gc, birdRegion, GameSimulation.BIRD_X, birdDrawY);
+        } else {
+            blit(gc, birdImg, GameSimulation.BIRD_X, birdDrawY, sim.getBirdWidth(), sim.getBirdHeight());
+        }
+        markDrawn(GameSimulation.BIRD_X, birdDrawY, sim.getBirdWidth(), sim.getBirdHeight());
+
+        // Draw pipes (they move at a constant speed, so the previous x is one step back)
+        double pipeOffset = -sim.getVelocityX() * (1.0 - alpha);
+        for (int i = 0; i < sim.getPipePairCount(); i++) {
+            double x = sim.getPipeX(i) + pipeOffset;
+            if (topPipeRegion != null && bottomPipeRegion != null) {
+                atlas.draw(gc, topPipeRegion, x, sim.getTopPipeY(i));
+                atlas.draw(gc, bottomPipeRegion, x, sim.getBottomPipeY(i));
+            } else {
+                blit(gc, topPipeImg, x, sim.getTopPipeY(i), GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+                blit(gc, bottomPipeImg, x, sim.getBottomPipeY(i), GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+            }
+            markDrawn(x, sim.getTopPipeY(i), GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+            markDrawn(x, sim.getBottomPipeY(i), GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+        }
+
+        // Draw score
+        if (!layered || sim.getScore() != hudScore) {
+            if (layered) {
+                hudGc.clearRect(0, 0, HUD_WIDTH, HUD_HEIGHT);
+            }
+            if (whiteText != null) {
+                whiteText.drawNumber(hudGc, sim.getScore(), 10, 35);
+            }
+            hudScore = sim.getScore();
+            framePixels += HUD_WIDTH * HUD_HEIGHT;
+        }
+
+        frames++;
+        pixelsTouched += framePixels;
+        renderNanos += System.nanoTime() - start;
+    }
+
+    public void drawGameOver(GameSimulation sim, double highScore) {
+        drawGameOver(sim, highScore, false);
+    }
+
+    // With rewindHint, practice mode's rewind key is shown under the scores
+    public void drawGameOver(GameSimulation sim, double highScore, boolean rewindHint) {
+        // First draw the full game state
+        draw(sim, 1.0);
+        enterScreen(SCREEN_GAME_OVER);
+
+        // Draw semi-transparent overlay
+        hudGc.setFill(new Color(0, 0, 0, 0.5));
+        hudGc.fillRect(0, 0, BOARD_WIDTH, BOARD_HEIGHT);
+
+        // Draw defeated Paimon image centered
+        if (gameOverRegion != null) {
+            atlas.draw(hudGc, gameOverRegion, (BOARD_WIDTH - GAME_OVER_IMG_SIZE) / 2, (BOARD_HEIGHT - GAME_OVER_IMG_SIZE) / 2 - 100);
+        } else if (gameOverImg != null) {
+            double imgWidth = GAME_OVER_IMG_SIZE;
+            double imgHeight = GAME_OVER_IMG_SIZE;
+            double x = (BOARD_WIDTH - imgWidth) / 2;
+            double y = (BOARD_HEIGHT - imgHeight) / 2 - 100; // Move up by 100 pixels
+
+            try {
+                blit(hudGc, gameOverImg, x, y, imgWidth, imgHeight);
+            } catch (Exception e) {
+                System.err.println("Failed to draw game over image: " + e.getMessage());
+            }
+        }
+
+        // Draw score text below the image
+        double textY = BOARD_HEIGHT/2 + 40; // Start text lower
+
+        // Center align text
+        drawCentered(gameOverText, GAME_OVER_TITLE, -1, textY);
+        drawCentered(scoreText, SCORE_FINAL, sim.getScore(), textY + 40);
+        drawCentered(whiteText, WHITE_HIGH_SCORE, (long) highScore, textY + 80);
+        if (rewindHint) {
+            drawCentered(whiteText, WHITE_REWIND, -1, textY + 140);
+        }
+    }
+
+    // Draws a label followed by a number (none if negative), centered horizontally on the board
+    private void drawCentered(BitmapFont font, int label, long value, double y) {
+        if (font == null) {
+            return;
+        }
+        double width = font.getLabelWidth(label) + (value >= 0 ? font.getNumberWidth(value) : 0);
+        double x = font.drawLabel(hudGc, label, (BOARD_WIDTH - width) / 2, y);
+        if (value >= 0) {
+            font.drawNumber(hudGc, value, x, y);
+        }
+    }
+
+    public long getFrames() { return frames; }
+    public double getAverageFrameNanos() { return frames == 0 ? 0 : (double) renderNanos / frames; }
+    public double getAveragePixelsPerFrame() { return frames == 0 ? 0 : (double) pixelsTouched / frames; }
+
+    public void resetStats() {
+        frames = 0;
+        pixelsTouched = 0;
+        renderNanos = 0;
+    }
+
+    // One-line summary of the counters; a "screen" is one full-board repaint worth of pixels
+    public String getStatsSummary() {
+        double pixels = getAveragePixelsPerFrame();
+        return String.format("%s rendering: %d frames, %.1f us/frame, %.0f px/frame (%.2f screens)",
+            layered ? "layered" : "single-layer", frames, getAverageFrameNanos() / 1000,
+            pixels, pixels / (BOARD_WIDTH * BOARD_HEIGHT));
+    }
+
+    // Switching screens leaves nothing from the previous one on the dynamic and HUD layers
+    private void enterScreen(int next) {
+        if (layered) {
+            gc.clearRect(0, 0, BOARD_WIDTH, BOARD_HEIGHT);
+            hudGc.clearRect(0, 0, BOARD_WIDTH, BOARD_HEIGHT);
+            framePixels += 2L * BOARD_WIDTH * BOARD_HEIGHT;
+        }
+        dirtyCount = 0;
+        hudScore = -1;
+        screen = next;
+    }
+
+    private void paintBackground() {
+        backgroundGc.clearRect(0, 0, BOARD_WIDTH, BOARD_HEIGHT);
+        blit(backgroundGc, backgroundImg, 0, 0, BOARD_WIDTH, BOARD_HEIGHT);
+        backgroundDirty = false;
+        framePixels += 2L * BOARD_WIDTH * BOARD_HEIGHT;
+    }
+
+    // Records a sprite's bounds, widened to whole pixels plus filtering spill, and counts its fill
+    private void markDrawn(double x, double y, double width, double height) {
+        double left = Math.max(0, Math.floor(x) - 1);
+        double top = Math.max(0, Math.floor(y) - 1);
+        double right = Math.min(BOARD_WIDTH, Math.ceil(x + width) + 1);
+        double bottom = Math.min(BOARD_HEIGHT, Math.ceil(y + height) + 1);
+        framePixels += (long) (width * height);
+        if (right <= left || bottom <= top || dirtyCount == MAX_SPRITES) {
+            return;
+        }
+        dirtyX[dirtyCount] = left;
+        dirtyY[dirtyCount] = top;
+        dirtyW[dirtyCount] = right - left;
+        dirtyH[dirtyCount] = bottom - top;
+        dirtyCount++;
+    }
+
+    // Unscaled draw when the sprite is already the target size, scaled draw otherwise
+    private static void blit(GraphicsContext gc, Image img, double x, double y, double width, double height) {
+        if (img != null && img.getWidth() == width && img.getHeight() == height) {
+            gc.drawImage(img, x, y);
+        } else {
+            gc.drawImage(img, x, y, width, height);
+        }
+    }
+}
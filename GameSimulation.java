@@ -0,0 +1,412 @@
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Headless game simulation: bird physics, pipe field, scoring and death detection.
+// Has no JavaFX dependencies so it can be stepped without a display.
+// The same seed and the same flap ticks always produce the same game.
+public class GameSimulation {
+
+    // Board constants
+    public static final int BOARD_WIDTH = 360;
+    public static final int BOARD_HEIGHT = 640;
+
+    // Bird constants
+    public static final int BIRD_X = BOARD_WIDTH / 8;
+    public static final float BIRD_START_Y = BOARD_HEIGHT / 2;
+
+    // Pipe constants
+    public static final int PIPE_START_X = BOARD_WIDTH;
+    public static final int PIPE_START_Y = 0;
+    public static final int PIPE_WIDTH = 64;
+    public static final int PIPE_HEIGHT = 512;
+    public static final int PIPE_SPAWN_TICKS = 108; // 1800 ms at 60 ticks per second
+    public static final int DEFAULT_OPENING_SPACE = BOARD_HEIGHT/3;
+
+    // Pipe pool capacity; pairs are 216px apart so only 2-3 are ever alive at once
+    public static final int MAX_PIPE_PAIRS = 8; // Must be a power of two
+    private static final int PIPE_MASK = MAX_PIPE_PAIRS - 1;
+
+    // Hitboxes are shrunk by this much on every side so grazing contact doesn't count
+    private static final int COLLISION_INSET = 5;
+
+    // Physics
+    private int velocityX = -2; // Pipe speed
+    private float gravity = 0.5f;
+    private float jumpVelocity = -8; // Jump force
+    private int openingSpace = DEFAULT_OPENING_SPACE; // Gap between top and bottom pipe
+
+    // Bird state
+    private float birdY = BIRD_START_Y;
+    private float prevBirdY = BIRD_START_Y; // Bird position before the last tick, for render interpolation
+    private float velocityY = 0;
+    private int birdWidth = 34;
+    private int birdHeight = 35;
+
+    // Pixel collision shapes; without a bird mask, inset bounding boxes are used
+    private CollisionMask birdMask;
+    private CollisionMask topPipeMask;
+    private CollisionMask bottomPipeMask;
+
+    // Pipe pairs as columns in a ring buffer: reused slots, oldest pair at head.
+    // The bottom pipe of a pair is derived from the top, so only x and top y are stored.
+    private final int[] pipeX = new int[MAX_PIPE_PAIRS];
+    private final int[] pipeTopY = new int[MAX_PIPE_PAIRS];
+    private int pipeHead = 0;
+    private int pipeCount = 0;
+    private int pipesPassed = 0; // Pairs from head the bird has already cleared
+
+    // Pipe gap generator (SplitMix64, the algorithm behind SplittableRandom), owned per game
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private long seed;
+    private long rngState;
+
+    // Game state
+    private int score = 0;
+    private boolean gameOver = false;
+    private long tick = 0;
+
+    public GameSimulation() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    public GameSimulation(long seed) {
+        reset(seed);
+    }
+
+    // Restarts the game with the current seed
+    public void reset() {
+        reset(seed);
+    }
+
+    public void reset(long seed) {
+        this.seed = seed;
+        rngState = seed;
+        birdY = BIRD_START_Y;
+        prevBirdY = BIRD_START_Y;
+        velocityY = 0;
+        Arrays.fill(pipeX, 0); // Unused slots too, so writeState() depends only on this game
+        Arrays.fill(pipeTopY, 0);
+        pipeHead = 0;
+        pipeCount = 0;
+        pipesPassed = 0;
+        score = 0;
+        gameOver = false;
+        tick = 0;
+    }
+
+    public void setBirdSize(int width, int height) {
+        birdWidth = width;
+        birdHeight = height;
+    }
+
+    // Switches to pixel-exact collision with the sprites' masks (the bird size follows the bird
+    // mask, pipe masks are PIPE_WIDTH x PIPE_HEIGHT), or back to inset boxes with a null bird
+    public void setCollisionMasks(CollisionMask bird, CollisionMask topPipe, CollisionMask bottomPipe) {
+        if (bird != null) {
+            if (topPipe.getWidth() != PIPE_WIDTH || topPipe.getHeight() != PIPE_HEIGHT
+                    || bottomPipe.getWidth() != PIPE_WIDTH || bottomPipe.getHeight() != PIPE_HEIGHT) {
+                throw new IllegalArgumentException("Pipe masks must be " + PIPE_WIDTH + "x" + PIPE_HEIGHT);
+            }
+            setBirdSize(bird.getWidth(), bird.getHeight());
+        }
+        birdMask = bird;
+        topPipeMask = topPipe;
+        bottomPipeMask = bottomPipe;
+    }
+
+    // Physics tuning; kept across reset()
+    public void setGravity(float gravity) { this.gravity = gravity; }
+    public void setJumpVelocity(float jumpVelocity) { this.jumpVelocity = jumpVelocity; }
+    public void setOpeningSpace(int openingSpace) { this.openingSpace = openingSpace; }
+
+    public void flap() {
+        if (!gameOver) {
+            velocityY = jumpVelocity;
+        }
+    }
+
+    void placePipes() {
+        int randomPipeY = (int)(PIPE_START_Y - PIPE_HEIGHT/3 - nextDouble()*(PIPE_HEIGHT/3));
+
+        // Pool full: recycle the oldest pair
+        if (pipeCount == MAX_PIPE_PAIRS) {
+            removeOldestPipePair();
+        }
+
+        int slot = (pipeHead + pipeCount) & PIPE_MASK;
+        pipeX[slot] = PIPE_START_X;
+        pipeTopY[slot] = randomPipeY;
+        pipeCount++;
+        GameEvents.pipeSpawn(tick, randomPipeY, pipeCount);
+    }
+
+    // Advances the simulation by one tick. Returns true if the bird died on this tick.
+    public boolean step() {
+        tick++;
+        prevBirdY = birdY;
+
+        if (!gameOver) {
+            // Bird movement
+            velocityY += gravity;
+            birdY += velocityY;
+            birdY = Math.max(birdY, 0);
+
+            // Broad phase: pairs are sorted by x and spaced wider than bird + pipe, so only
+            // the first pair not yet cleared can overlap the bird horizontally
+            boolean hasNextPair = pipesPassed < pipeCount;
+            int next = (pipeHead + pipesPassed) & PIPE_MASK;
+
+            // Check for collisions
+            if (hasNextPair && collidesWithPair(pipeX[next], pipeTopY[next])) {
+                return die("pipe");
+            }
+
+            // Check if bird hits ground
+            if (birdY + birdHeight > BOARD_HEIGHT) {
+                return die("ground");
+            }
+
+            // Update score
+            if (hasNextPair && pipeX[next] + PIPE_WIDTH < BIRD_X) {
+                pipesPassed++;
+                score++;
+            }
+        }
+
+        // Pipe movement
+        for (int i = 0; i < pipeCount; i++) {
+            pipeX[(pipeHead + i) & PIPE_MASK] += velocityX;
+        }
+
+        // Remove off-screen pipes (spawned in order, so they are always at the head)
+        while (pipeCount > 0 && pipeX[pipeHead] + PIPE_WIDTH < 0) {
+            removeOldestPipePair();
+        }
+
+        // Spawn pipes on the simulation clock so layouts don't depend on wall time
+        if (tick % PIPE_SPAWN_TICKS == 0) {
+            placePipes();
+        }
+        return false;
+    }
+
+    // Runs up to `ticks` ticks without flapping and returns true if the bird died, leaving exactly
+    // the state (writeState) that calling step() as many times would, stopping at death. For
+    // fast-forwarding between flaps, e.g. when re-simulating replays; GameBenchmark check-advance
+    // compares the two. Pipes move at a constant integer speed, so the ticks on which the next
+    // pair overlaps the bird horizontally, and the tick it is passed, are solved for up front;
+    // collision is only tested in that window and pipes are moved once per span.
+    // This is a faster path through the same per-tick simulation, not a larger timestep: the bird
+    // is still integrated and tested once per tick to reproduce step()'s float rounding, so the
+    // gain is modest (about 1.4x on replays, see GameBenchmark replay).
+    public boolean advance(int ticks) {
+        while (ticks > 0) {
+            if (gameOver || velocityX >= 0) {
+                if (step()) {
+                    return true;
+                }
+                ticks--;
+                continue;
+            }
+            // Spans end on spawn ticks so pipes are placed on the same ticks as with step()
+            int span = Math.min(ticks, PIPE_SPAWN_TICKS - (int) (tick % PIPE_SPAWN_TICKS));
+            if (advanceSpan(span)) {
+                return true;
+            }
+            ticks -= span;
+        }
+        return false;
+    }
+
+    // Up to `span` ticks with no spawn before the last one; offsets k are ticks into the span,
+    // at which pipes have moved k times
+    private boolean advanceSpan(int span) {
+        long start = tick;
+        int next = 0;
+        int hitFrom = 0;
+        int hitTo = -1;
+        int passAt = -1; // Below k: plan the next pair's window from this tick
+
+        for (int k = 0; k < span; k++) {
+            if (passAt < k) {
+                hitFrom = span;
+                hitTo = -1;
+                passAt = span;
+                if (pipesPassed < pipeCount) {
+                    next = (pipeHead + pipesPassed) & PIPE_MASK;
+                    int x = pipeX[next] + velocityX * k;
+                    // Full bounding boxes, which covers both inset boxes and masks
+                    hitFrom = k + ticksUntilLeftOf(x, BIRD_X + birdWidth);
+                    hitTo = k + ticksUntilLeftOf(x, BIRD_X - PIPE_WIDTH + 1) - 1;
+                    passAt = k + ticksUntilLeftOf(x, BIRD_X - PIPE_WIDTH);
+                }
+            }
+
+            prevBirdY = birdY;
+            velocityY += gravity;
+            birdY += velocityY;
+            birdY = Math.max(birdY, 0);
+
+            if (k >= hitFrom && k <= hitTo) {
+                int x = pipeX[next] + velocityX * k;
+                if (collidesWithPair(x, pipeTopY[next])) {
+                    movePipes(k);
+                    removeOffscreenPipes(k);
+                    tick = start + k + 1;
+                    return die("pipe");
+                }
+            }
+            if (birdY + birdHeight > BOARD_HEIGHT) {
+                movePipes(k);
+                removeOffscreenPipes(k);
+                tick = start + k + 1;
+                return die("ground");
+            }
+            if (k == passAt) {
+                pipesPassed++;
+                score++;
+                passAt = -1;
+            }
+        }
+
+        movePipes(span);
+        removeOffscreenPipes(span);
+        tick = start + span;
+        if (tick % PIPE_SPAWN_TICKS == 0) {
+            placePipes();
+        }
+        return false;
+    }
+
+    // Ticks until a pipe edge at x, moving left, is first left of the limit
+    private int ticksUntilLeftOf(int x, int limit) {
+        return x < limit ? 0 : (x - limit) / -velocityX + 1;
+    }
+
+    private void movePipes(int ticks) {
+        for (int i = 0; i < pipeCount; i++) {
+            pipeX[(pipeHead + i) & PIPE_MASK] += velocityX * ticks;
+        }
+    }
+
+    // Drops the pairs that went off screen during the last `ticks` moves. step() stops moving a
+    // pair on the tick it leaves, so its freed slot is put back to that x.
+    private void removeOffscreenPipes(int ticks) {
+        while (pipeCount > 0 && pipeX[pipeHead] + PIPE_WIDTH < 0) {
+            int startX = pipeX[pipeHead] - velocityX * ticks;
+            pipeX[pipeHead] = startX + velocityX * ticksUntilLeftOf(startX, -PIPE_WIDTH);
+            removeOldestPipePair();
+        }
+    }
+
+    // Kept out of step() so the hot path stays small enough to inline
+    private boolean die(String cause) {
+        gameOver = true;
+        GameEvents.collision(tick, cause, birdY, velocityY);
+        return true;
+    }
+
+    // Same sequence as new SplittableRandom(seed).nextDouble()
+    private double nextDouble() {
+        long z = (rngState += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    private void removeOldestPipePair() {
+        pipeHead = (pipeHead + 1) & PIPE_MASK;
+        pipeCount--;
+        if (pipesPassed > 0) {
+            pipesPassed--;
+        }
+    }
+
+    // Broad phase on the bounding boxes, then the masks if set
+    boolean collidesWithPair(int pipeX, int topPipeY) {
+        if (birdMask == null) {
+            return collision(pipeX, topPipeY) || collision(pipeX, topPipeY + PIPE_HEIGHT + openingSpace);
+        }
+        if (BIRD_X + birdWidth <= pipeX || pipeX + PIPE_WIDTH <= BIRD_X) {
+            return false;
+        }
+        int y = (int) birdY; // Bird rows on the pixel grid; birdY is never negative
+        int bottomPipeY = topPipeY + PIPE_HEIGHT + openingSpace;
+        return (y < topPipeY + PIPE_HEIGHT && birdMask.overlaps(BIRD_X, y, topPipeMask, pipeX, topPipeY))
+            || (y + birdHeight > bottomPipeY && birdMask.overlaps(BIRD_X, y, bottomPipeMask, pipeX, bottomPipeY));
+    }
+
+    boolean collision(int pipeX, int pipeY) {
+        return BIRD_X + birdWidth - COLLISION_INSET > pipeX + COLLISION_INSET &&
+               BIRD_X + COLLISION_INSET < pipeX + PIPE_WIDTH - COLLISION_INSET &&
+               birdY + birdHeight - COLLISION_INSET > pipeY + COLLISION_INSET &&
+               birdY + COLLISION_INSET < pipeY + PIPE_HEIGHT - COLLISION_INSET;
+    }
+
+    // Everything that changes while a game runs, as STATE_SIZE ints: clock, bird, pipe ring,
+    // score, RNG and seed. Physics tuning, hitbox and masks are settings and aren't included.
+    public static final int STATE_SIZE = 14 + 2 * MAX_PIPE_PAIRS;
+
+    public void writeState(int[] state) {
+        state[0] = (int) tick;
+        state[1] = (int) (tick >>> 32);
+        state[2] = Float.floatToRawIntBits(birdY);
+        state[3] = Float.floatToRawIntBits(prevBirdY);
+        state[4] = Float.floatToRawIntBits(velocityY);
+        state[5] = pipeHead;
+        state[6] = pipeCount;
+        state[7] = pipesPassed;
+        state[8] = score;
+        state[9] = gameOver ? 1 : 0;
+        state[10] = (int) rngState;
+        state[11] = (int) (rngState >>> 32);
+        state[12] = (int) seed;
+        state[13] = (int) (seed >>> 32);
+        System.arraycopy(pipeX, 0, state, 14, MAX_PIPE_PAIRS);
+        System.arraycopy(pipeTopY, 0, state, 14 + MAX_PIPE_PAIRS, MAX_PIPE_PAIRS);
+    }
+
+    public void readState(int[] state) {
+        tick = (state[0] & 0xFFFFFFFFL) | (long) state[1] << 32;
+        birdY = Float.intBitsToFloat(state[2]);
+        prevBirdY = Float.intBitsToFloat(state[3]);
+        velocityY = Float.intBitsToFloat(state[4]);
+        pipeHead = state[5];
+        pipeCount = state[6];
+        pipesPassed = state[7];
+        score = state[8];
+        gameOver = state[9] != 0;
+        rngState = (state[10] & 0xFFFFFFFFL) | (long) state[11] << 32;
+        seed = (state[12] & 0xFFFFFFFFL) | (long) state[13] << 32;
+        System.arraycopy(state, 14, pipeX, 0, MAX_PIPE_PAIRS);
+        System.arraycopy(state, 14 + MAX_PIPE_PAIRS, pipeTopY, 0, MAX_PIPE_PAIRS);
+    }
+
+    // Accessors used by the renderer
+    public float getBirdY() { return birdY; }
+    public float getPrevBirdY() { return prevBirdY; }
+    public int getVelocityX() { return velocityX; }
+    public float getGravity() { return gravity; }
+    public float getJumpVelocity() { return jumpVelocity; }
+    public int getOpeningSpace() { return openingSpace; }
+    public float getVelocityY() { return velocityY; }
+    public int getBirdWidth() { return birdWidth; }
+    public int getBirdHeight() { return birdHeight; }
+    public CollisionMask getBirdMask() { return birdMask; }
+    public CollisionMask getTopPipeMask() { return topPipeMask; }
+    public CollisionMask getBottomPipeMask() { return bottomPipeMask; }
+    public int getScore() { return score; }
+    public boolean isGameOver() { return gameOver; }
+    public long getTick() { return tick; }
+    public long getSeed() { return seed; }
+
+    // Pipe pairs, indexed from oldest (0) to newest (getPipePairCount() - 1)
+    public int getPipePairCount() { return pipeCount; }
+    public int getPipeX(int i) { return pipeX[(pipeHead + i) & PIPE_MASK]; }
+    public int getTopPipeY(int i) { return pipeTopY[(pipeHead + i) & PIPE_MASK]; }
+    public int getBottomPipeY(int i) { return getTopPipeY(i) + PIPE_HEIGHT + openingSpace; }
+
+    // Index of the first pair the bird has not cleared yet, or -1 if there is none
+    public int getNextPipeIndex() { return pipesPassed < pipeCount ? pipesPassed : -1; }
+}
@@ -0,0 +1,18 @@
+// Scripted pilot: flaps whenever the bird starts falling below the next gap's lower edge.
+public class GapFollowerController implements Controller {
+
+    private final int margin; // Distance kept above the bottom pipe
+
+    public GapFollowerController() {
+        this(40);
+    }
+
+    public GapFollowerController(int margin) {
+        this.margin = margin;
+    }
+
+    @Override
+    public boolean shouldFlap(Observation obs) {
+        return obs.velocityY > 0 && obs.birdY + obs.birdHeight > obs.gapBottom - margin;
+    }
+}
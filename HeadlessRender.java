@@ -0,0 +1,309 @@
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+
+// Renders game screens offscreen, without a display, to check and time the renderer on CI.
+// Fixed game states (start screen, two points in a seeded bot game, game over) are rendered
+// into a WritableImage and compared pixel by pixel against golden PNGs, first without text and
+// then again (the hud-* goldens) with the HUD drawn through BitmapFont. A full bot game is
+// then drawn by both the single-layer and the layered renderer, checking every frame matches
+// and measuring frames per second for each.
+//
+// Usage: java HeadlessRender [--golden=benchmarks/golden] [--update] [--tolerance=0]
+//                            [--frames=600]
+// Needs the openjfx-monocle jar on the classpath; the software pipeline and headless Monocle
+// are selected automatically unless set on the command line. HUD glyphs are rasterized by
+// Java2D from the logical SansSerif font, so the hud-* goldens depend on the JDK and the font
+// it maps SansSerif to; regenerate them with --update when either changes.
+// Exits with status 1 if any image differs.
+public class HeadlessRender {
+
+    private static final int WIDTH = GameSimulation.BOARD_WIDTH;
+    private static final int HEIGHT = GameSimulation.BOARD_HEIGHT;
+    private static final String IMAGE_DIR = "file:resources/images/";
+    private static final long SEED = 7;
+
+    private static Path goldenDir = Paths.get("benchmarks", "golden");
+    private static Path failureDir = Paths.get("render-failures");
+    private static boolean update = false;
+    private static int tolerance = 0;
+    private static int frames = 600;
+
+    // A renderer together with the node to snapshot and a reusable frame buffer
+    private static final class Target {
+        final GameRenderer renderer;
+        final Node node;
+        final WritableImage image = new WritableImage(WIDTH, HEIGHT);
+        final int[] pixels = new int[WIDTH * HEIGHT];
+
+        Target(boolean layered) {
+            if (layered) {
+                Canvas background = new Canvas(WIDTH, HEIGHT);
+                Canvas dynamic = new Canvas(WIDTH, HEIGHT);
+                Canvas hud = new Canvas(WIDTH, HEIGHT);
+                node = new Group(background, dynamic, hud);
+                renderer = new GameRenderer(background.getGraphicsContext2D(),
+                    dynamic.getGraphicsContext2D(), hud.getGraphicsContext2D());
+            } else {
+                Canvas canvas = new Canvas(WIDTH, HEIGHT);
+                node = canvas;
+                renderer = new GameRenderer(canvas.getGraphicsContext2D());
+            }
+        }
+
+        WritableImage snapshot() {
+            node.snapshot(null, image);
+            return image;
+        }
+
+        int[] readPixels() {
+            snapshot().getPixelReader().getPixels(0, 0, WIDTH, HEIGHT,
+                PixelFormat.getIntArgbInstance(), pixels, 0, WIDTH);
+            return pixels;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "--golden": goldenDir = Paths.get(kv[1]); break;
+                case "--update": update = true; break;
+                case "--tolerance": tolerance = Integer.parseInt(kv[1]); break;
+                case "--frames": frames = Integer.parseInt(kv[1]); break;
+                default: System.err.println("Ignoring argument " + arg);
+            }
+        }
+        setDefault("glass.platform", "Monocle");
+        setDefault("monocle.platform", "Headless");
+        setDefault("prism.order", "sw");
+
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+
+        int[] failures = new int[1];
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                failures[0] = run();
+            } catch (Exception e) {
+                System.err.println("Headless render failed: " + e);
+                failures[0] = 1;
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        Platform.exit();
+        System.exit(failures[0] == 0 ? 0 : 1);
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static int run() throws IOException {
+        Target single = new Target(false);
+        Target layered = new Target(true);
+        Target hud = new Target(false);
+        setUp(single.renderer);
+        setUp(layered.renderer);
+        setUp(hud.renderer);
+        hud.renderer.setFont(new java.awt.Font(java.awt.Font.SANS_SERIF, java.awt.Font.PLAIN, 30));
+        int failures = 0;
+
+        // Golden images of fixed states, through the single-layer renderer
+        single.renderer.drawStartScreen(3);
+        failures += check("start", single.readPixels());
+
+        GameSimulation sim = new GameSimulation(SEED);
+        playUntil(sim, new GapFollowerController(), 200);
+        single.renderer.draw(sim, 0.5);
+        failures += check("game-200", single.readPixels());
+
+        playUntil(sim, new GapFollowerController(), 900);
+        single.renderer.draw(sim, 0.25);
+        failures += check("game-900", single.readPixels());
+
+        GameSimulation falling = new GameSimulation(SEED);
+        playUntil(falling, obs -> false, Long.MAX_VALUE);
+        single.renderer.drawGameOver(falling, 3);
+        failures += check("game-over", single.readPixels());
+
+        // The same screens with every HUD label and the score digits
+        hud.renderer.drawStartScreen(3);
+        failures += check("hud-start", hud.readPixels());
+        hud.renderer.draw(sim, 0.25);
+        failures += check("hud-game-900", hud.readPixels());
+        hud.renderer.drawGameOver(falling, 3, true);
+        failures += check("hud-game-over", hud.readPixels());
+
+        // Layered rendering is incremental, so compare it against full repaints over a whole game
+        GameSimulation game = new GameSimulation(SEED);
+        Observation obs = new Observation();
+        Controller bot = new GapFollowerController();
+        int compared = 0;
+        int mismatched = 0;
+        int worst = 0;
+        single.renderer.drawStartScreen(3);
+        layered.renderer.drawStartScreen(3);
+        worst = Math.max(worst, maxDifference(single.readPixels(), layered.readPixels()));
+        if (worst > tolerance) {
+            mismatched++;
+        }
+        for (int f = 0; f < frames && !game.isGameOver(); f++) {
+            advance(game, obs, bot);
+            double alpha = (f % 4) / 4.0;
+            single.renderer.draw(game, alpha);
+            layered.renderer.draw(game, alpha);
+            int difference = maxDifference(single.readPixels(), layered.readPixels());
+            if (difference > tolerance) {
+                mismatched++;
+            }
+            worst = Math.max(worst, difference);
+            compared++;
+        }
+        System.out.printf("layered vs single-layer: %d of %d frames differ, max channel difference %d%n",
+            mismatched, compared, worst);
+        if (mismatched > 0) {
+            failures++;
+        }
+
+        // Frames per second, including the snapshot that rasterizes each frame
+        measure("single-layer", single);
+        measure("layered", layered);
+        return failures;
+    }
+
+    private static void setUp(GameRenderer renderer) throws IOException {
+        renderer.setBackground(load("bg_day.png"));
+        renderer.setBird(load("paimon.png"), 34, 35);
+        renderer.setPipes(load("toppipe.png"), load("bottompipe.png"));
+        renderer.setLogo(load("flappypaimon.png"));
+        renderer.setGameOverImage(load("paimon_defeated.png"));
+    }
+
+    private static Image load(String name) throws IOException {
+        Image img = new Image(IMAGE_DIR + name);
+        if (img.isError()) {
+            throw new IOException("Cannot load " + IMAGE_DIR + name + " (run from the repository root)");
+        }
+        return img;
+    }
+
+    private static void advance(GameSimulation sim, Observation obs, Controller controller) {
+        obs.update(sim);
+        if (controller.shouldFlap(obs)) {
+            sim.flap();
+        }
+        sim.step();
+    }
+
+    private static void playUntil(GameSimulation sim, Controller controller, long tick) {
+        Observation obs = new Observation();
+        while (sim.getTick() < tick && !sim.isGameOver()) {
+            advance(sim, obs, controller);
+        }
+    }
+
+    private static void measure(String name, Target target) {
+        GameSimulation sim = new GameSimulation(SEED);
+        Observation obs = new Observation();
+        Controller bot = new GapFollowerController();
+        target.renderer.resetStats();
+        long start = System.nanoTime();
+        for (int f = 0; f < frames; f++) {
+            if (sim.isGameOver()) {
+                sim.reset(SEED);
+            }
+            advance(sim, obs, bot);
+            target.renderer.draw(sim, 1.0);
+            target.snapshot();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-12s %7.1f frames/s   %s%n", name, frames / seconds, target.renderer.getStatsSummary());
+    }
+
+    // Compares against the golden PNG, or writes it with --update; returns 1 on mismatch
+    private static int check(String name, int[] pixels) throws IOException {
+        Path golden = goldenDir.resolve(name + ".png");
+        if (update) {
+            Files.createDirectories(goldenDir);
+            writePng(golden, pixels);
+            System.out.println("wrote " + golden);
+            return 0;
+        }
+        if (!Files.exists(golden)) {
+            System.err.println(name + ": no golden image at " + golden + " (run with --update)");
+            return 1;
+        }
+
+        BufferedImage expected = ImageIO.read(golden.toFile());
+        if (expected.getWidth() != WIDTH || expected.getHeight() != HEIGHT) {
+            System.err.println(name + ": golden image is " + expected.getWidth() + "x" + expected.getHeight());
+            return 1;
+        }
+        int[] expectedPixels = expected.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+        int differing = 0;
+        int worst = 0;
+        int[] diff = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            int d = channelDifference(pixels[i], expectedPixels[i]);
+            if (d > tolerance) {
+                differing++;
+                diff[i] = 0xFFFF0000;
+            } else {
+                diff[i] = 0xFF000000 | (pixels[i] & 0xFFFFFF) >> 2 & 0x3F3F3F; // Dimmed context
+            }
+            worst = Math.max(worst, d);
+        }
+
+        if (differing == 0) {
+            System.out.printf("%-13s ok (max channel difference %d)%n", name, worst);
+            return 0;
+        }
+        Files.createDirectories(failureDir);
+        writePng(failureDir.resolve(name + "-actual.png"), pixels);
+        writePng(failureDir.resolve(name + "-diff.png"), diff);
+        System.err.printf("%-13s FAILED: %d pixels differ (max channel difference %d), see %s%n",
+            name, differing, worst, failureDir);
+        return 1;
+    }
+
+    private static int maxDifference(int[] a, int[] b) {
+        int worst = 0;
+        for (int i = 0; i < a.length; i++) {
+            worst = Math.max(worst, channelDifference(a[i], b[i]));
+        }
+        return worst;
+    }
+
+    private static int channelDifference(int a, int b) {
+        int worst = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            worst = Math.max(worst, Math.abs((a >>> shift & 0xFF) - (b >>> shift & 0xFF)));
+        }
+        return worst;
+    }
+
+    private static void writePng(Path file, int[] pixels) throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, WIDTH, HEIGHT, pixels, 0, WIDTH);
+        ImageIO.write(image, "png", file.toFile());
+    }
+}
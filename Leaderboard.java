@@ -0,0 +1,219 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+// Local leaderboard kept in a memory-mapped file of fixed-size records. The file is an
+// append-only journal: each finished game is written into the next free slot with a CRC32,
+// so an insert is one 32-byte write and never rewrites earlier records. Writes land in the
+// page cache as soon as they are made, so they survive the process being killed; close()
+// also forces them to disk. On open every slot is scanned and checksummed: a torn last
+// record or a corrupted slot is skipped, and appending resumes after the last valid record.
+// The best TOP_N games are kept sorted in memory.
+//
+// File format (big-endian):
+//   header: int magic "FBLB", int version, int recordSize, 20 reserved bytes
+//   records: long timestamp, long seed, int score, int ticks, int slot, int crc32 of the first 28 bytes
+//
+// Usage: java Leaderboard [file]
+public class Leaderboard implements Closeable {
+
+    public static final int TOP_N = 10;
+
+    private static final int MAGIC = 0x46424c42; // "FBLB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 32;
+    private static final int CHECKED_BYTES = 28;
+    private static final int GROW_RECORDS = 1024; // File grows by this many slots at a time
+
+    // One finished game
+    public static class Entry {
+        public final long timestamp;
+        public final long seed;
+        public final int score;
+        public final int ticks;
+
+        Entry(long timestamp, long seed, int score, int ticks) {
+            this.timestamp = timestamp;
+            this.seed = seed;
+            this.score = score;
+            this.ticks = ticks;
+        }
+    }
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;    // Slots in the current mapping
+    private int nextSlot;    // Where the next record goes
+    private int syncedSlot;  // Records before this one have been forced to disk
+    private int records;     // Valid records in the file
+    private int corrupt;     // Slots skipped on open
+
+    private final Entry[] top = new Entry[TOP_N]; // Best first
+    private int topCount;
+    private final CRC32 crc = new CRC32();
+
+    private Leaderboard(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static Leaderboard open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Leaderboard board = new Leaderboard(channel);
+        try {
+            board.load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return board;
+    }
+
+    // Opens and scans the file on a background thread so startup doesn't wait for it
+    public static CompletableFuture<Leaderboard> openAsync(Path file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return open(file);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot open leaderboard " + file + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            remap(GROW_RECORDS);
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+            map.putInt(8, RECORD_SIZE);
+            return;
+        }
+
+        remap((int) Math.max(GROW_RECORDS, (size - HEADER_SIZE) / RECORD_SIZE));
+        if (map.getInt(0) != MAGIC) {
+            throw new IOException("Not a leaderboard file");
+        }
+        if (map.getInt(4) != VERSION || map.getInt(8) != RECORD_SIZE) {
+            throw new IOException("Unsupported leaderboard version " + map.getInt(4));
+        }
+
+        int lastValid = -1;
+        for (int slot = 0; slot < capacity; slot++) {
+            Entry entry = read(slot);
+            if (entry != null) {
+                insertTop(entry);
+                records++;
+                corrupt += slot - lastValid - 1; // Unreadable slots between valid ones
+                lastValid = slot;
+            }
+        }
+        nextSlot = lastValid + 1;
+        syncedSlot = nextSlot;
+        if (corrupt > 0) {
+            System.err.println("Leaderboard: skipped " + corrupt + " corrupt records");
+        }
+    }
+
+    // Appends a game; O(1) on disk plus an O(TOP_N) update of the in-memory ranking
+    public synchronized void add(long seed, int score, long ticks) throws IOException {
+        if (nextSlot == capacity) {
+            remap(capacity + GROW_RECORDS);
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), seed, score, (int) Math.min(ticks, Integer.MAX_VALUE));
+        int offset = HEADER_SIZE + nextSlot * RECORD_SIZE;
+        map.putLong(offset, entry.timestamp);
+        map.putLong(offset + 8, entry.seed);
+        map.putInt(offset + 16, entry.score);
+        map.putInt(offset + 20, entry.ticks);
+        map.putInt(offset + 24, nextSlot);
+        map.putInt(offset + 28, checksum(offset)); // Written last: a torn record fails its check
+        nextSlot++;
+        records++;
+        insertTop(entry);
+    }
+
+    public synchronized int getBestScore() {
+        return topCount == 0 ? 0 : top[0].score;
+    }
+
+    public synchronized List<Entry> getTop() {
+        List<Entry> result = new ArrayList<>(topCount);
+        for (int i = 0; i < topCount; i++) {
+            result.add(top[i]);
+        }
+        return result;
+    }
+
+    public synchronized int getRecordCount() { return records; }
+    public synchronized int getCorruptCount() { return corrupt; }
+
+    // Flushes appended records to disk, for callers that need durability beyond a process crash
+    public synchronized void sync() {
+        if (syncedSlot < nextSlot) {
+            map.force(HEADER_SIZE + syncedSlot * RECORD_SIZE, (nextSlot - syncedSlot) * RECORD_SIZE);
+            syncedSlot = nextSlot;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    private Entry read(int slot) {
+        int offset = HEADER_SIZE + slot * RECORD_SIZE;
+        if (map.getInt(offset + 24) != slot || map.getInt(offset + 28) != checksum(offset)) {
+            return null; // Never written, torn or corrupted
+        }
+        return new Entry(map.getLong(offset), map.getLong(offset + 8), map.getInt(offset + 16), map.getInt(offset + 20));
+    }
+
+    private int checksum(int offset) {
+        crc.reset();
+        crc.update(map.slice(offset, CHECKED_BYTES));
+        return (int) crc.getValue();
+    }
+
+    // Ties keep the earlier game ahead
+    private void insertTop(Entry entry) {
+        int i = topCount;
+        while (i > 0 && top[i - 1].score < entry.score) {
+            i--;
+        }
+        if (i == TOP_N) {
+            return;
+        }
+        int moved = Math.min(topCount, TOP_N - 1) - i;
+        System.arraycopy(top, i, top, i + 1, moved);
+        top[i] = entry;
+        topCount = Math.min(topCount + 1, TOP_N);
+    }
+
+    // Mapping past the end of the file extends it; the new slots read as zeros, i.e. empty
+    private void remap(int slots) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * RECORD_SIZE);
+        capacity = slots;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "scores.db");
+        try (Leaderboard board = open(file)) {
+            System.out.println(board.getRecordCount() + " games, " + board.getCorruptCount() + " corrupt records");
+            int rank = 1;
+            for (Entry e : board.getTop()) {
+                System.out.printf("%2d. %5d  seed %d, %d ticks, %tF %<tT%n", rank++, e.score, e.seed, e.ticks, e.timestamp);
+            }
+        }
+    }
+}
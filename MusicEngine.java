@@ -0,0 +1,150 @@
+import javafx.animation.KeyFrame;
+import javafx.animation.KeyValue;
+import javafx.animation.Timeline;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaException;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+// Background music with one long-lived player per track. Players are created once, when a
+// track is first selected or is next in line, and reused afterwards, so switching tracks or
+// starting a run never sets up a decoder again. Switches, starts and stops crossfade between
+// the outgoing and incoming player. MediaPlayer prepares, seeks and plays asynchronously,
+// so nothing here blocks the FX thread. Use it on the FX thread only.
+public class MusicEngine {
+
+    private static final Duration CROSSFADE = Duration.millis(800);
+
+    private final Media[] tracks;
+    private final MediaPlayer[] players;
+
+    // Player volume = volume * fade for the incoming player, volume * (1 - fade) for the outgoing one
+    private final DoubleProperty volume = new SimpleDoubleProperty(1.0);
+    private final DoubleProperty fade = new SimpleDoubleProperty(1.0);
+    private final Timeline fadeTimeline = new Timeline();
+    private MediaPlayer current;
+    private MediaPlayer outgoing;
+
+    private int selected;
+    private boolean playing;
+
+    public MusicEngine(int trackCount) {
+        tracks = new Media[trackCount];
+        players = new MediaPlayer[trackCount];
+    }
+
+    // Called as each track finishes loading; starts it if it is the one that should be playing
+    public void setTrack(int index, Media media) {
+        tracks[index] = media;
+        if (index == selected || index == next(selected)) {
+            prepare(index);
+        }
+        if (index == selected && playing && current == null) {
+            fadeTo(players[index]);
+        }
+    }
+
+    public void select(int index) {
+        selected = index;
+        prepare(next(index));
+        if (playing) {
+            fadeTo(prepare(index));
+        }
+    }
+
+    // Fades the selected track in from the beginning
+    public void start() {
+        playing = true;
+        fadeTo(prepare(selected));
+    }
+
+    // Fades out whatever is playing
+    public void stop() {
+        playing = false;
+        fadeTo(null);
+    }
+
+    public void setVolume(double value) {
+        volume.set(value);
+    }
+
+    public void dispose() {
+        fadeTimeline.stop();
+        for (MediaPlayer player : players) {
+            if (player != null) {
+                player.stop();
+                player.dispose();
+            }
+        }
+    }
+
+    private int next(int index) {
+        return (index + 1) % tracks.length;
+    }
+
+    // Creates the track's player if it is loaded and has none yet; it prepares in the background
+    private MediaPlayer prepare(int index) {
+        if (players[index] == null && tracks[index] != null) {
+            MediaPlayer player;
+            try {
+                player = new MediaPlayer(tracks[index]);
+            } catch (MediaException e) {
+                System.err.println("Background music error: " + e.getMessage());
+                tracks[index] = null; // Don't retry on every switch
+                return null;
+            }
+            player.setCycleCount(MediaPlayer.INDEFINITE);
+            player.setVolume(0);
+            player.setOnError(() ->
+                System.err.println("Background music error: " + player.getError()));
+            players[index] = player;
+        }
+        return players[index];
+    }
+
+    // Crossfades from the current player to next (null fades to silence)
+    private void fadeTo(MediaPlayer next) {
+        fadeTimeline.stop();
+        if (next != current) {
+            if (next != null && next == outgoing) {
+                // Switching back mid-fade: reverse it from where it is
+                outgoing = current;
+                current = next;
+                fade.set(1 - fade.get());
+            } else {
+                silence(outgoing);
+                outgoing = current;
+                current = next;
+                fade.set(0);
+                if (current != null) {
+                    current.seek(Duration.ZERO);
+                    current.play();
+                }
+            }
+            if (current != null) {
+                current.volumeProperty().bind(volume.multiply(fade));
+            }
+            if (outgoing != null) {
+                outgoing.volumeProperty().bind(volume.multiply(fade.negate().add(1)));
+            }
+        }
+
+        fadeTimeline.getKeyFrames().setAll(
+            new KeyFrame(CROSSFADE.multiply(1 - fade.get()), new KeyValue(fade, 1.0)));
+        fadeTimeline.setOnFinished(e -> {
+            silence(outgoing);
+            outgoing = null;
+        });
+        fadeTimeline.playFromStart();
+    }
+
+    private static void silence(MediaPlayer player) {
+        if (player != null) {
+            player.volumeProperty().unbind();
+            player.pause();
+            player.setVolume(0);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Small feed-forward network (5 inputs, one tanh hidden layer, one output) that flaps
+// when its output is positive. Weights are a flat genome evolved by BotTrainer.
+public class NeuralController implements Controller {
+
+    public static final int INPUTS = 5;
+    public static final int HIDDEN = 8;
+    public static final int GENOME_SIZE = (INPUTS + 1) * HIDDEN + HIDDEN + 1; // +1 for biases
+
+    private final float[] weights;
+    private final float[] inputs = new float[INPUTS]; // Scratch buffers, reused every tick
+    private final float[] hidden = new float[HIDDEN];
+
+    public NeuralController(float[] weights) {
+        if (weights.length != GENOME_SIZE) {
+            throw new IllegalArgumentException("Expected " + GENOME_SIZE + " weights, got " + weights.length);
+        }
+        this.weights = weights;
+    }
+
+    // Weights are used in place, so a trainer can swap genomes without reallocating
+    public float[] getWeights() {
+        return weights;
+    }
+
+    @Override
+    public boolean shouldFlap(Observation obs) {
+        // Normalise to roughly [-1, 1]
+        inputs[0] = obs.birdY / GameSimulation.BOARD_HEIGHT;
+        inputs[1] = obs.velocityY / 10f;
+        inputs[2] = obs.pipeDistance / GameSimulation.BOARD_WIDTH;
+        inputs[3] = (obs.gapTop - obs.birdY) / GameSimulation.BOARD_HEIGHT;
+        inputs[4] = (obs.gapBottom - obs.birdY - obs.birdHeight) / GameSimulation.BOARD_HEIGHT;
+
+        int w = 0;
+        for (int h = 0; h < HIDDEN; h++) {
+            float sum = weights[w++]; // Bias
+            for (int i = 0; i < INPUTS; i++) {
+                sum += weights[w++] * inputs[i];
+            }
+            hidden[h] = (float) Math.tanh(sum);
+        }
+
+        float out = weights[w++]; // Bias
+        for (int h = 0; h < HIDDEN; h++) {
+            out += weights[w++] * hidden[h];
+        }
+        return out > 0;
+    }
+
+    // Genome file: one weight per line, '#' lines are comments
+    public void save(Path file) throws IOException {
+        List<String> lines = new ArrayList<>(GENOME_SIZE + 1);
+        lines.add("# Flappy bot genome: " + INPUTS + " inputs, " + HIDDEN + " hidden");
+        for (float weight : weights) {
+            lines.add(Float.toString(weight));
+        }
+        Files.write(file, lines);
+    }
+
+    public static NeuralController load(Path file) throws IOException {
+        float[] weights = new float[GENOME_SIZE];
+        int n = 0;
+        for (String line : Files.readAllLines(file)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (n == GENOME_SIZE) {
+                throw new IOException("Too many weights in " + file);
+            }
+            try {
+                weights[n++] = Float.parseFloat(line);
+            } catch (NumberFormatException e) {
+                throw new IOException("Bad weight \"" + line + "\" in " + file);
+            }
+        }
+        if (n != GENOME_SIZE) {
+            throw new IOException("Expected " + GENOME_SIZE + " weights in " + file + ", got " + n);
+        }
+        return new NeuralController(weights);
+    }
+}
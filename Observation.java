@@ -0,0 +1,29 @@
+// Fixed-size view of the game handed to a Controller each tick.
+// One instance is reused for every tick of every game, so observing allocates nothing.
+public class Observation {
+
+    public float birdY;        // Top of the bird
+    public float birdHeight;
+    public float velocityY;    // Positive is falling
+    public float pipeDistance; // From the bird's right edge to the next pair's left edge
+    public float gapTop;       // Bottom edge of the next top pipe
+    public float gapBottom;    // Top edge of the next bottom pipe
+
+    public void update(GameSimulation sim) {
+        birdY = sim.getBirdY();
+        birdHeight = sim.getBirdHeight();
+        velocityY = sim.getVelocityY();
+
+        int next = sim.getNextPipeIndex();
+        if (next >= 0) {
+            pipeDistance = sim.getPipeX(next) - (GameSimulation.BIRD_X + sim.getBirdWidth());
+            gapTop = sim.getTopPipeY(next) + GameSimulation.PIPE_HEIGHT;
+            gapBottom = sim.getBottomPipeY(next);
+        } else {
+            // No pipe yet: aim for a gap centred on the board
+            pipeDistance = GameSimulation.BOARD_WIDTH;
+            gapTop = (GameSimulation.BOARD_HEIGHT - sim.getOpeningSpace()) / 2f;
+            gapBottom = gapTop + sim.getOpeningSpace();
+        }
+    }
+}
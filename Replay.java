@@ -0,0 +1,353 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// Recording of one game: its seed, the sprites it was played with and the ticks on which the
+// player flapped. Flap ticks are stored as unsigned varint deltas, so a typical run takes a few
+// hundred bytes. Playing a replay re-simulates the game headlessly and reproduces its score exactly.
+// Sprites are stored as SpriteSet indices, never as a hitbox or collision masks: playback takes
+// both from the bundled sprite files, so a replay can't make verification use a smaller bird or
+// emptier masks than the game does.
+//
+// File format (big-endian):
+//   int magic "FBRP", byte version, long seed,
+//   version 3: byte bird, byte pipe set, byte pixelCollision (1 = masks, 0 = inset boxes),
+//   versions 1 and 2: varint birdWidth, varint birdHeight, which must be a bundled bird's size,
+//     then in version 2 byte hasMasks, and if 1 the bird, top pipe and bottom pipe masks, each
+//     varint width, varint height, then runs of identical rows (varint count, varint row bits)
+//     until height rows are covered; they must equal the bundled sprites' masks,
+//   varint endTick, varint score,
+//   varint flapCount, flapCount x varint (flap tick - previous flap tick)
+//
+// Usage: java Replay verify <file>...
+public class Replay {
+
+    private static final int MAGIC = 0x46425250; // "FBRP"
+    private static final int VERSION = 3;
+
+    private final long seed;
+    private final int bird;  // SpriteSet bird index
+    private final int pipes; // SpriteSet pipe set index
+    private final boolean pixelCollision;
+
+    // Varint-encoded flap tick deltas
+    private byte[] flaps = new byte[64];
+    private int flapBytes = 0;
+    private int flapCount = 0;
+    private long lastFlapTick = 0;
+
+    // Claimed result, set when the game ends
+    private long endTick = 0;
+    private int score = 0;
+
+    // Outcome of playing a replay
+    public static class Result {
+        public long ticks;
+        public int score;
+        public boolean died;
+    }
+
+    // A game played with these sprites (see SpriteSet.apply)
+    public Replay(long seed, int bird, int pipes, boolean pixelCollision) {
+        if (bird < 0 || bird >= SpriteSet.BIRD_FILES.length || pipes < 0 || pipes >= SpriteSet.PIPE_FILES.length) {
+            throw new IllegalArgumentException("No sprites " + bird + "/" + pipes);
+        }
+        this.seed = seed;
+        this.bird = bird;
+        this.pipes = pipes;
+        this.pixelCollision = pixelCollision;
+    }
+
+    // Records a flap applied before the simulation's next step, i.e. at sim.getTick()
+    public void recordFlap(long tick) {
+        if (tick < lastFlapTick) {
+            throw new IllegalArgumentException("Flap at tick " + tick + " after one at " + lastFlapTick);
+        }
+        long delta = tick - lastFlapTick;
+        lastFlapTick = tick;
+        flapCount++;
+
+        if (flapBytes + 10 > flaps.length) {
+            byte[] grown = new byte[flaps.length * 2];
+            System.arraycopy(flaps, 0, grown, 0, flapBytes);
+            flaps = grown;
+        }
+        while ((delta & ~0x7FL) != 0) {
+            flaps[flapBytes++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        flaps[flapBytes++] = (byte) delta;
+    }
+
+    public void finish(long endTick, int score) {
+        this.endTick = endTick;
+        this.score = score;
+    }
+
+    public long getSeed() { return seed; }
+    public int getBird() { return bird; }
+    public int getPipes() { return pipes; }
+    public boolean hasPixelCollision() { return pixelCollision; }
+    public long getEndTick() { return endTick; }
+    public int getScore() { return score; }
+    public int getFlapCount() { return flapCount; }
+
+    // 64-bit FNV-1a hash of the encoded flaps; with the seed it identifies the game played
+    public long getInputHash() {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < flapBytes; i++) {
+            hash = (hash ^ (flaps[i] & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public Result play() {
+        return play(new GameSimulation(seed), new Result());
+    }
+
+    // Re-simulates the game on the given simulation, reusing it and the result object
+    public Result play(GameSimulation sim, Result result) {
+        sim.reset(seed);
+        try {
+            SpriteSet.apply(sim, bird, pipes, pixelCollision);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load the sprites' collision masks: " + e.getMessage(), e);
+        }
+
+        int pos = 0;
+        int remaining = flapCount;
+        long nextFlap = -1;
+        if (remaining > 0) {
+            nextFlap = readVarint(flaps, pos);
+            pos = skipVarint(flaps, pos);
+        }
+
+        boolean died = false;
+        while (!died && sim.getTick() < endTick) {
+            // Apply every flap recorded for this tick
+            while (remaining > 0 && nextFlap == sim.getTick()) {
+                sim.flap();
+                remaining--;
+                if (remaining > 0) {
+                    nextFlap += readVarint(flaps, pos);
+                    pos = skipVarint(flaps, pos);
+                }
+            }
+            // Fast-forward to the next flap or the end; advance() matches stepping tick by tick
+            long until = remaining > 0 && nextFlap > sim.getTick() ? Math.min(nextFlap, endTick) : endTick;
+            died = sim.advance((int) Math.min(until - sim.getTick(), Integer.MAX_VALUE));
+        }
+
+        result.ticks = sim.getTick();
+        result.score = sim.getScore();
+        result.died = died;
+        return result;
+    }
+
+    // True if re-simulating gives the recorded score on the recorded final tick
+    public boolean verify() {
+        Result result = play();
+        return result.score == score && result.ticks == endTick;
+    }
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + flapBytes);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+            out.writeByte(bird);
+            out.writeByte(pipes);
+            out.writeByte(pixelCollision ? 1 : 0);
+            writeVarint(out, endTick);
+            writeVarint(out, score);
+            writeVarint(out, flapCount);
+            out.write(flaps, 0, flapBytes);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode replay", e);
+        }
+    }
+
+    public static Replay fromBytes(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a replay file");
+        }
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        long seed = in.readLong();
+
+        Replay replay;
+        if (version == VERSION) {
+            int bird = in.readUnsignedByte();
+            int pipes = in.readUnsignedByte();
+            int pixelCollision = in.readUnsignedByte();
+            if (bird >= SpriteSet.BIRD_FILES.length || pipes >= SpriteSet.PIPE_FILES.length || pixelCollision > 1) {
+                throw new IOException("Unknown sprites " + bird + "/" + pipes + "/" + pixelCollision);
+            }
+            replay = new Replay(seed, bird, pipes, pixelCollision != 0);
+        } else {
+            replay = readOldSprites(in, version, seed);
+        }
+        replay.endTick = readVarint(in);
+        replay.score = (int) readVarint(in);
+        replay.flapCount = (int) readVarint(in);
+        replay.flaps = in.readAllBytes();
+        replay.flapBytes = replay.flaps.length;
+
+        // Check the deltas are complete so playback can't run off the end
+        int pos = 0;
+        for (int i = 0; i < replay.flapCount; i++) {
+            if (pos >= replay.flapBytes) {
+                throw new IOException("Truncated replay");
+            }
+            pos = skipVarint(replay.flaps, pos);
+        }
+        if (pos > replay.flapBytes) {
+            throw new IOException("Truncated replay");
+        }
+        return replay;
+    }
+
+    public void save(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Files.write(file, toBytes());
+    }
+
+    public static Replay load(Path file) throws IOException {
+        return fromBytes(Files.readAllBytes(file));
+    }
+
+    // Versions 1 and 2 stored a hitbox and, for pixel collision, the masks themselves. Both are
+    // mapped back to bundled sprites; anything that isn't exactly a bundled sprite is rejected.
+    private static Replay readOldSprites(DataInputStream in, int version, long seed) throws IOException {
+        long birdWidth = readVarint(in);
+        long birdHeight = readVarint(in);
+        int bird = SpriteSet.findBird(birdWidth, birdHeight);
+        if (bird < 0) {
+            throw new IOException("Hitbox " + birdWidth + "x" + birdHeight + " is not one of the birds");
+        }
+        if (version < 2 || in.readUnsignedByte() == 0) {
+            return new Replay(seed, bird, 0, false); // Box collision doesn't depend on the pipe set
+        }
+        CollisionMask birdMask = readMask(in);
+        CollisionMask topPipe = readMask(in);
+        CollisionMask bottomPipe = readMask(in);
+        if (birdMask.equals(SpriteSet.birdMask(bird))) {
+            for (int pipes = 0; pipes < SpriteSet.PIPE_FILES.length; pipes++) {
+                if (topPipe.equals(SpriteSet.pipeMask(pipes, 0)) && bottomPipe.equals(SpriteSet.pipeMask(pipes, 1))) {
+                    return new Replay(seed, bird, pipes, true);
+                }
+            }
+        }
+        throw new IOException("Collision masks are not those of the game's sprites");
+    }
+
+    private static CollisionMask readMask(DataInputStream in) throws IOException {
+        long width = readVarint(in);
+        long height = readVarint(in);
+        if (width < 1 || width > CollisionMask.MAX_WIDTH || height < 1 || height > GameSimulation.PIPE_HEIGHT) {
+            throw new IOException("Bad collision mask size " + width + "x" + height);
+        }
+        long[] rows = new long[(int) height];
+        int y = 0;
+        while (y < height) {
+            long run = readVarint(in);
+            long row = readVarint(in);
+            if (run < 1 || run > height - y || (width < 64 && row >>> width != 0)) {
+                throw new IOException("Bad collision mask row");
+            }
+            Arrays.fill(rows, y, y + (int) run, row);
+            y += run;
+        }
+        return new CollisionMask((int) width, (int) height, rows);
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long readVarint(byte[] buf, int pos) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buf[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int skipVarint(byte[] buf, int pos) {
+        while (pos < buf.length && (buf[pos] & 0x80) != 0) {
+            pos++;
+        }
+        return pos + 1;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !args[0].equals("verify")) {
+            System.err.println("Usage: java Replay verify <file>...");
+            System.exit(2);
+        }
+
+        GameSimulation sim = new GameSimulation();
+        Result result = new Result();
+        int failed = 0;
+        long totalTicks = 0;
+        long start = System.nanoTime();
+
+        for (int i = 1; i < args.length; i++) {
+            try {
+                Replay replay = load(Paths.get(args[i]));
+                replay.play(sim, result);
+                totalTicks += result.ticks;
+                boolean ok = result.score == replay.score && result.ticks == replay.endTick;
+                if (!ok) {
+                    failed++;
+                }
+                System.out.println(args[i] + ": score " + result.score + " (claimed " + replay.score + "), "
+                    + result.ticks + " ticks " + (ok ? "OK" : "MISMATCH"));
+            } catch (IOException e) {
+                failed++;
+                System.err.println(args[i] + ": " + e.getMessage());
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double realSeconds = totalTicks / 60.0; // 60 ticks per second in play
+        System.out.printf("%d replays, %d failed, %.3f s (%.0fx real time)%n",
+            args.length - 1, failed, seconds, realSeconds / Math.max(seconds, 1e-9));
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
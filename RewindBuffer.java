@@ -0,0 +1,178 @@
+import java.util.Arrays;
+
+// Bounded history of game states for practice-mode rewind. The simulation's state
+// (GameSimulation.writeState) is recorded every tick as a delta against the tick before: a bit
+// set of the ints that changed (a long, so at most 64 state ints), then each change as a zigzag
+// varint. A typical tick (bird moved, live pipes shifted 2 px, clock +1) takes about 17 bytes
+// instead of the 120 of a full state.
+//
+// Ticks are grouped in segments of up to SEGMENT_TICKS, each starting with a full keyframe
+// (a delta against all zeros), so restoring any tick decodes at most one segment. Segments are
+// fixed-size byte arrays allocated up front and reused as a ring, oldest dropped first, so the
+// buffer never allocates while recording and its memory is fixed when it is created:
+// SEGMENT_BYTES per started second of history plus one spare segment, i.e. 2 KB per second at
+// 60 ticks per second (a second of play typically fills about 1 KB of it). If states ever
+// changed more than that, segments would just close early and hold less history.
+public class RewindBuffer {
+
+    public static final int SEGMENT_TICKS = 60;
+    private static final int SEGMENT_BYTES = 2048;
+    private static final int MAX_RECORD_BYTES = 10 + 5 * GameSimulation.STATE_SIZE; // Bit set + every int changed
+
+    // A keyframe and the deltas of the ticks after it
+    private static final class Segment {
+        final byte[] data = new byte[SEGMENT_BYTES];
+        long firstTick;
+        int ticks;
+        int bytes;
+    }
+
+    private final Segment[] ring;
+    private int oldest = 0; // Ring index of the oldest segment
+    private int used = 0;   // Segments holding history
+
+    private final int[] previous = new int[GameSimulation.STATE_SIZE];
+    private final int[] current = new int[GameSimulation.STATE_SIZE];
+    private final int[] zero = new int[GameSimulation.STATE_SIZE];
+    private long lastTick = -1;
+
+    public RewindBuffer(int historyTicks) {
+        if (GameSimulation.STATE_SIZE > Long.SIZE) {
+            throw new IllegalStateException("RewindBuffer tracks changes to at most " + Long.SIZE
+                + " state ints, but GameSimulation.STATE_SIZE is " + GameSimulation.STATE_SIZE);
+        }
+        ring = new Segment[(historyTicks + SEGMENT_TICKS - 1) / SEGMENT_TICKS + 1];
+        for (int i = 0; i < ring.length; i++) {
+            ring[i] = new Segment();
+        }
+    }
+
+    public void clear() {
+        used = 0;
+        lastTick = -1;
+    }
+
+    public boolean isEmpty() { return used == 0; }
+    public long getOldestTick() { return used == 0 ? -1 : ring[oldest].firstTick; }
+    public long getNewestTick() { return lastTick; }
+    public long getMemoryBytes() { return (long) ring.length * SEGMENT_BYTES; }
+
+    // Bytes recorded so far, for measuring the encoding
+    public long getUsedBytes() {
+        long bytes = 0;
+        for (int i = 0; i < used; i++) {
+            bytes += ring[(oldest + i) % ring.length].bytes;
+        }
+        return bytes;
+    }
+
+    // Records the simulation's state after its latest tick
+    public void record(GameSimulation sim) {
+        sim.writeState(current);
+        Segment last = used == 0 ? null : ring[(oldest + used - 1) % ring.length];
+        boolean follows = sim.getTick() == lastTick + 1;
+        if (last == null || !follows || last.ticks == SEGMENT_TICKS || last.bytes + MAX_RECORD_BYTES > SEGMENT_BYTES) {
+            if (used == ring.length) {
+                oldest = (oldest + 1) % ring.length;
+                used--;
+            }
+            last = ring[(oldest + used) % ring.length];
+            used++;
+            last.firstTick = sim.getTick();
+            last.ticks = 0;
+            last.bytes = encode(zero, current, last.data, 0);
+        } else {
+            last.bytes = encode(previous, current, last.data, last.bytes);
+        }
+        last.ticks++;
+        lastTick = sim.getTick();
+        System.arraycopy(current, 0, previous, 0, current.length);
+    }
+
+    // Puts the simulation back to the state recorded at the given tick and forgets everything
+    // after it, so recording carries on from there. Returns false if that tick isn't held.
+    public boolean restore(GameSimulation sim, long tick) {
+        if (used == 0 || tick < getOldestTick() || tick > lastTick) {
+            return false;
+        }
+        int index = used - 1;
+        while (ring[(oldest + index) % ring.length].firstTick > tick) {
+            index--;
+        }
+        Segment segment = ring[(oldest + index) % ring.length];
+
+        Arrays.fill(current, 0);
+        int pos = 0;
+        int ticks = (int) (tick - segment.firstTick) + 1;
+        for (int i = 0; i < ticks; i++) {
+            pos = decode(segment.data, pos, current);
+        }
+        segment.ticks = ticks;
+        segment.bytes = pos;
+        used = index + 1;
+        lastTick = tick;
+        System.arraycopy(current, 0, previous, 0, current.length);
+        sim.readState(current);
+        return true;
+    }
+
+    // Writes the ints of `to` that differ from `from`; returns the new write position
+    private static int encode(int[] from, int[] to, byte[] out, int pos) {
+        long changed = 0;
+        for (int i = 0; i < to.length; i++) {
+            if (to[i] != from[i]) {
+                changed |= 1L << i;
+            }
+        }
+        pos = writeVarint(out, pos, changed);
+        for (int i = 0; i < to.length; i++) {
+            if ((changed & 1L << i) != 0) {
+                int delta = to[i] - from[i];
+                pos = writeVarint(out, pos, ((delta << 1) ^ (delta >> 31)) & 0xFFFFFFFFL);
+            }
+        }
+        return pos;
+    }
+
+    // Applies one record to `state`; returns the position after it
+    private static int decode(byte[] in, int pos, int[] state) {
+        long changed = readVarint(in, pos);
+        pos = skipVarint(in, pos);
+        for (int i = 0; i < state.length; i++) {
+            if ((changed & 1L << i) != 0) {
+                int zigzag = (int) readVarint(in, pos);
+                pos = skipVarint(in, pos);
+                state[i] += (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        return pos;
+    }
+
+    private static int writeVarint(byte[] out, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long readVarint(byte[] in, int pos) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int skipVarint(byte[] in, int pos) {
+        while ((in[pos] & 0x80) != 0) {
+            pos++;
+        }
+        return pos + 1;
+    }
+}
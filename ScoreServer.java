@@ -0,0 +1,465 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// HTTP service that collects scores from many cabinets into one leaderboard.
+//   POST /scores  body: a replay (Replay.toBytes()); it is re-simulated and only recorded if
+//                 it reproduces the claimed score and length. Answers once the score is on disk.
+//   GET  /scores  the top scores as text
+// Requests are handled on a fixed thread pool, where replays are verified in parallel. Verified
+// scores go onto a queue drained by a single writer thread, which appends everything waiting
+// (up to MAX_BATCH) and then forces the file once, so one disk flush covers a whole batch.
+// Replays are re-simulated with the hitbox and collision masks of the bundled sprites they name
+// (SpriteSet), never with anything taken from the request, so run from the repository root.
+// Scores are only comparable when games were played with the same hitbox and collision test, so
+// the board ranks one bird in one collision mode (by default bird 0 with pixel collision, what
+// the game runs unless told otherwise) and answers 422 to any other replay; the two pipe sets
+// share their masks. A game already recorded since the server started (same seed, same flaps)
+// is answered with 409.
+//
+// Usage: java ScoreServer [--port=8080] [--scores=server-scores.db] [--threads=N]
+//                         [--bird=0] [--pixel-collision=off] [--load-test=N] [--check]
+// --load-test starts the server on a free local port, submits N distinct bot replays to it
+// through HttpClient and reports submissions per second and the average batch size.
+// --check starts it on a free port with a temporary score file, submits a genuine replay, the
+// same replay again, one from another bird and forged ones (an inflated score, empty collision
+// masks, a 1x1 hitbox) and exits with status 1 unless exactly the genuine one is recorded.
+public class ScoreServer {
+
+    private static final int MAX_BATCH = 1024;
+    private static final int MAX_BODY = 1 << 20;
+    private static final long MAX_TICKS = 60L * 60 * 60 * 4; // Four hours of play at 60 ticks/s
+
+    static {
+        // Without this, Nagle's algorithm holds back small responses to keep-alive connections
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    // A verified score waiting for the writer
+    private static final class Submission {
+        final Replay replay;
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        Submission(Replay replay) {
+            this.replay = replay;
+        }
+    }
+
+    private final Leaderboard board;
+    private final int bird;                 // The SpriteSet bird this board ranks
+    private final boolean pixelCollision;   // And its collision mode
+    private final Set<String> recorded = ConcurrentHashMap.newKeySet(); // Seed and input hash of each game accepted
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final BlockingQueue<Submission> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Writer statistics
+    private long batches = 0;
+    private long written = 0;
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    public ScoreServer(Leaderboard board, int port, int threads, int bird, boolean pixelCollision) throws IOException {
+        this.board = board;
+        this.bird = bird;
+        this.pixelCollision = pixelCollision;
+        server = HttpServer.create(new InetSocketAddress(port), 256);
+        handlers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "score-handler");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(handlers);
+        server.createContext("/scores", this::handle);
+        writer = new Thread(this::writeLoop, "score-writer");
+        writer.setDaemon(true);
+    }
+
+    public void start() {
+        writer.start();
+        server.start();
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+
+    // Stops accepting requests, then lets the writer commit whatever is still queued
+    public void stop() {
+        server.stop(1);
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        handlers.shutdown();
+    }
+
+    public synchronized String getStatsSummary() {
+        return String.format("%d scores in %d batches (%.1f per flush), %d rejected",
+            written, batches, batches == 0 ? 0.0 : (double) written / batches, rejected.get());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            switch (exchange.getRequestMethod()) {
+                case "POST": submit(exchange); break;
+                case "GET": respond(exchange, 200, topScores()); break;
+                default: respond(exchange, 405, "Use GET or POST\n");
+            }
+        } catch (IOException e) {
+            System.err.println("Score request failed: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void submit(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY + 1);
+        if (body.length > MAX_BODY) {
+            rejected.incrementAndGet();
+            respond(exchange, 413, "Replay too large\n");
+            return;
+        }
+        Replay replay;
+        try {
+            replay = Replay.fromBytes(body);
+        } catch (IOException e) {
+            rejected.incrementAndGet();
+            respond(exchange, 400, "Bad replay: " + e.getMessage() + "\n");
+            return;
+        }
+        if (replay.getBird() != bird || replay.hasPixelCollision() != pixelCollision) {
+            rejected.incrementAndGet();
+            respond(exchange, 422, "This board ranks " + SpriteSet.BIRD_FILES[bird]
+                + (pixelCollision ? " with" : " without") + " pixel collision\n");
+            return;
+        }
+        if (replay.getEndTick() > MAX_TICKS || !replay.verify()) {
+            rejected.incrementAndGet();
+            respond(exchange, 422, "Replay does not reproduce score " + replay.getScore() + "\n");
+            return;
+        }
+        // Claimed only once verified, so a forgery can't block the genuine game it copies
+        String game = replay.getSeed() + ":" + Long.toHexString(replay.getInputHash());
+        if (!recorded.add(game)) {
+            rejected.incrementAndGet();
+            respond(exchange, 409, "Game already recorded\n");
+            return;
+        }
+
+        Submission submission = new Submission(replay);
+        queue.add(submission);
+        try {
+            submission.written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "Interrupted\n");
+            return;
+        } catch (ExecutionException e) {
+            recorded.remove(game); // Not on the board, so it may be submitted again
+            respond(exchange, 500, "Failed to record score: " + e.getCause().getMessage() + "\n");
+            return;
+        }
+        respond(exchange, 200, "Recorded score " + replay.getScore() + ", best " + board.getBestScore() + "\n");
+    }
+
+    // Group commit: append every queued score, flush once, then release all their requests
+    private void writeLoop() {
+        List<Submission> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            IOException failure = null;
+            try {
+                for (Submission s : batch) {
+                    board.add(s.replay.getSeed(), s.replay.getScore(), s.replay.getEndTick());
+                }
+                board.sync();
+            } catch (IOException e) {
+                failure = e;
+                System.err.println("Failed to write score batch: " + e.getMessage());
+            }
+            synchronized (this) {
+                batches++;
+                written += failure == null ? batch.size() : 0;
+            }
+            for (Submission s : batch) {
+                if (failure == null) {
+                    s.written.complete(null);
+                } else {
+                    s.written.completeExceptionally(failure);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private String topScores() {
+        StringBuilder text = new StringBuilder();
+        int rank = 1;
+        for (Leaderboard.Entry e : board.getTop()) {
+            text.append(rank++).append(". ").append(e.score).append(" (seed ").append(e.seed).append(")\n");
+        }
+        return text.toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Posts a finished game's replay without blocking the caller; the future holds the server's answer
+    public static CompletableFuture<HttpResponse<String>> submit(HttpClient client, URI server, Replay replay) {
+        return submit(client, server, replay.toBytes());
+    }
+
+    private static CompletableFuture<HttpResponse<String>> submit(HttpClient client, URI server, byte[] body) {
+        HttpRequest request = HttpRequest.newBuilder(server.resolve("/scores"))
+            .header("Content-Type", "application/octet-stream")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        Path scores = Paths.get("server-scores.db");
+        int threads = Runtime.getRuntime().availableProcessors() * 4;
+        int bird = 0;
+        boolean pixelCollision = true;
+        int loadTest = 0;
+        boolean check = false;
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "--port": port = Integer.parseInt(kv[1]); break;
+                case "--scores": scores = Paths.get(kv[1]); break;
+                case "--threads": threads = Integer.parseInt(kv[1]); break;
+                case "--bird": bird = Integer.parseInt(kv[1]); break;
+                case "--pixel-collision": pixelCollision = !"off".equals(kv[1]); break;
+                case "--load-test": loadTest = Integer.parseInt(kv[1]); break;
+                case "--check": check = true; break;
+                default: System.err.println("Ignoring argument " + arg);
+            }
+        }
+
+        if (bird < 0 || bird >= SpriteSet.BIRD_FILES.length) {
+            System.err.println("No bird " + bird + "; there are " + SpriteSet.BIRD_FILES.length);
+            System.exit(2);
+        }
+        if (check) {
+            bird = 0; // The check's replays are built for the default board
+            pixelCollision = true;
+        }
+        SpriteSet.loadMasks(); // Replays are verified against the bundled sprites; fail now if they're missing
+        if (check) {
+            scores = Files.createTempFile("score-check", ".db");
+        }
+        Leaderboard board = Leaderboard.open(scores);
+        ScoreServer server = new ScoreServer(board, loadTest > 0 || check ? 0 : port, threads, bird, pixelCollision);
+        server.start();
+        if (check) {
+            boolean passed = runCheck(server, board);
+            server.stop();
+            board.close();
+            Files.deleteIfExists(scores);
+            System.exit(passed ? 0 : 1);
+        }
+        if (loadTest == 0) {
+            System.out.println("Score server listening on port " + server.getPort());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop();
+                try {
+                    board.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close leaderboard: " + e.getMessage());
+                }
+                System.out.println(server.getStatsSummary());
+            }));
+            return;
+        }
+
+        runLoadTest(server, loadTest, bird, pixelCollision);
+        server.stop();
+        board.close();
+        System.out.println(server.getStatsSummary());
+    }
+
+    // Submits distinct bot games, which the board accepts, with many requests in flight
+    private static void runLoadTest(ScoreServer server, int submissions, int bird, boolean pixelCollision)
+            throws IOException, InterruptedException {
+        Replay[] replays = new Replay[submissions];
+        GameSimulation sim = new GameSimulation();
+        SpriteSet.apply(sim, bird, 0, pixelCollision);
+        for (int i = 0; i < replays.length; i++) {
+            replays[i] = botReplay(sim, bird, i, 600 + i % 256 * 20L); // 10 to 95 seconds of play
+        }
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://localhost:" + server.getPort());
+        Semaphore inFlight = new Semaphore(64);
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int i = 0; i < submissions; i++) {
+            inFlight.acquire();
+            submit(client, uri, replays[i]).whenComplete((response, error) -> {
+                if (error != null || response.statusCode() != 200) {
+                    failed.incrementAndGet();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(64);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d submissions in %.2f s: %.0f/s, %d failed%n",
+            submissions, seconds, submissions / seconds, failed.get());
+    }
+
+    // Plays the gap-following bot on the sprites the simulation is set up with, for up to length
+    // ticks; bird is the SpriteSet index the replay names
+    private static Replay botReplay(GameSimulation sim, int bird, long seed, long length) {
+        Observation obs = new Observation();
+        Controller bot = new GapFollowerController();
+        sim.reset(seed);
+        Replay replay = new Replay(seed, bird, 0, sim.getBirdMask() != null);
+        boolean died = false;
+        while (!died && sim.getTick() < length) {
+            obs.update(sim);
+            if (bot.shouldFlap(obs)) {
+                replay.recordFlap(sim.getTick());
+                sim.flap();
+            }
+            died = sim.step();
+        }
+        replay.finish(sim.getTick(), sim.getScore());
+        return replay;
+    }
+
+    // Submits one genuine replay, a resubmission of it, a genuine game outside the board's bird
+    // and collision mode, and three forgeries; only the first may be recorded
+    private static boolean runCheck(ScoreServer server, Leaderboard board) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        URI uri = URI.create("http://localhost:" + server.getPort());
+        GameSimulation sim = new GameSimulation();
+        SpriteSet.apply(sim, 1, 0, true);
+        Replay otherBird = botReplay(sim, 1, 7, 3000);
+        SpriteSet.apply(sim, 0, 0, false);
+        Replay boxes = botReplay(sim, 0, 7, 3000);
+        SpriteSet.apply(sim, 0, 0, true);
+        Replay genuine = botReplay(sim, 0, 7, 3000);
+
+        Replay inflated = new Replay(7, 0, 0, true);
+        inflated.finish(3000, genuine.getScore() + 100);
+
+        // A game played with empty masks never hits a pipe; as a version 2 file carrying those
+        // masks it used to verify with whatever score that reached
+        CollisionMask noBird = new CollisionMask(34, 35, new long[35]);
+        CollisionMask noPipe = new CollisionMask(GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT,
+            new long[GameSimulation.PIPE_HEIGHT]);
+        sim.setCollisionMasks(noBird, noPipe, noPipe);
+        Replay ghost = botReplay(sim, 0, 7, 36000);
+        byte[] emptyMasks = oldFormat(ghost, 2, 34, 35);
+
+        sim.setCollisionMasks(null, null, null);
+        sim.setBirdSize(1, 1);
+        byte[] tinyHitbox = oldFormat(botReplay(sim, 0, 7, 36000), 1, 1, 1);
+
+        boolean passed = expect(client, uri, "genuine, score " + genuine.getScore(), genuine.toBytes(), 200);
+        passed &= expect(client, uri, "same game again", genuine.toBytes(), 409);
+        passed &= expect(client, uri, "other bird, score " + otherBird.getScore(), otherBird.toBytes(), 422);
+        passed &= expect(client, uri, "box collision, score " + boxes.getScore(), boxes.toBytes(), 422);
+        passed &= expect(client, uri, "inflated score", inflated.toBytes(), 422);
+        passed &= expect(client, uri, "empty masks, score " + ghost.getScore(), emptyMasks, 400);
+        passed &= expect(client, uri, "1x1 hitbox", tinyHitbox, 400);
+        if (board.getRecordCount() != 1) {
+            System.out.println("FAILED: " + board.getRecordCount() + " scores recorded, expected 1");
+            passed = false;
+        }
+        System.out.println(passed ? "Score server check passed" : "Score server check FAILED");
+        return passed;
+    }
+
+    private static boolean expect(HttpClient client, URI server, String name, byte[] body, int status) throws Exception {
+        HttpResponse<String> response = submit(client, server, body).get();
+        boolean ok = response.statusCode() == status;
+        System.out.printf("%-24s %d (expected %d) %s  %s", name, response.statusCode(), status,
+            ok ? "OK" : "FAILED", response.body());
+        return ok;
+    }
+
+    // A replay re-encoded in the version 1 or 2 layout with the given hitbox; version 2 gets blank
+    // bird and pipe masks
+    private static byte[] oldFormat(Replay replay, int version, int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] current = replay.toBytes();
+        out.write(current, 0, 4); // Magic
+        out.writeByte(version);
+        out.write(current, 5, 8); // Seed
+        writeVarint(out, width);
+        writeVarint(out, height);
+        if (version == 2) {
+            out.writeByte(1);
+            int[][] sizes = {{width, height}, {GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT},
+                {GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT}};
+            for (int[] size : sizes) {
+                writeVarint(out, size[0]);
+                writeVarint(out, size[1]);
+                writeVarint(out, size[1]); // One run of blank rows
+                writeVarint(out, 0);
+            }
+        }
+        out.write(current, 16, current.length - 16); // Past the three sprite bytes, the layouts agree
+        return bytes.toByteArray();
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,210 @@
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+// Low-latency sound effects: clips are decoded to PCM once, then mixed in software on a
+// dedicated thread into one small output line. A fixed pool of voices lets effects overlap
+// instead of cutting each other off; when all voices are busy the oldest one is reused.
+//
+// Without an audio device, or with -Daudio=null, output goes to a null backend that paces
+// the mixer in real time and discards the samples, so headless runs behave the same.
+public final class SoundEngine {
+
+    private static final float SAMPLE_RATE = 44100f;
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+    private static final int BLOCK_FRAMES = 256;    // ~5.8 ms mixed per pass
+    private static final int LINE_BLOCKS = 3;       // Output buffer depth, in blocks
+    private static final int MAX_VOICES = 8;
+
+    // A clip decoded to 16-bit mono PCM at the engine's sample rate; immutable and thread-safe
+    public static final class Sound {
+        final short[] samples;
+
+        Sound(short[] samples) {
+            this.samples = samples;
+        }
+
+        public double getSeconds() { return samples.length / SAMPLE_RATE; }
+    }
+
+    private final SourceDataLine line; // null for the null backend
+    private final Thread mixerThread;
+    private volatile boolean running = true;
+
+    // Voices; guarded by this
+    private final Sound[] voiceSound = new Sound[MAX_VOICES];
+    private final int[] voicePos = new int[MAX_VOICES];
+    private final float[] voiceGain = new float[MAX_VOICES];
+    private final long[] voiceStart = new long[MAX_VOICES]; // nanoTime of play(), 0 once heard
+
+    // Press-to-sound latency: from play() until the voice's first sample leaves the output buffer
+    private long latencyCount;
+    private long latencyTotalNanos;
+    private long latencyMaxNanos;
+
+    private SoundEngine(SourceDataLine line) {
+        this.line = line;
+        mixerThread = new Thread(this::mixLoop, "sound-mixer");
+        mixerThread.setDaemon(true);
+        mixerThread.setPriority(Thread.MAX_PRIORITY);
+        mixerThread.start();
+    }
+
+    // Opens the default output, falling back to the null backend if there is none
+    public static SoundEngine open() {
+        if (!"null".equals(System.getProperty("audio"))) {
+            try {
+                SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT);
+                line.open(FORMAT, BLOCK_FRAMES * LINE_BLOCKS * FORMAT.getFrameSize());
+                line.start();
+                return new SoundEngine(line);
+            } catch (LineUnavailableException | IllegalArgumentException e) {
+                System.err.println("No audio output, sound effects muted: " + e.getMessage());
+            }
+        }
+        return new SoundEngine(null);
+    }
+
+    public static SoundEngine openNull() {
+        return new SoundEngine(null);
+    }
+
+    public boolean isNull() { return line == null; }
+
+    // Decodes and resamples a clip; safe to call from any thread
+    public static Sound decode(String path) throws IOException {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(new File(path))) {
+            AudioFormat pcm = new AudioFormat(source.getFormat().getSampleRate(), 16, 1, true, false);
+            try (AudioInputStream mono = AudioSystem.getAudioInputStream(pcm, source);
+                 AudioInputStream converted = AudioSystem.getAudioInputStream(FORMAT, mono)) {
+                byte[] bytes = converted.readAllBytes();
+                short[] samples = new short[bytes.length / 2];
+                for (int i = 0; i < samples.length; i++) {
+                    samples[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+                }
+                return new Sound(samples);
+            }
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            throw new IOException("Cannot decode " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Starts a new voice for sound at volume 0..1; never blocks on the audio device
+    public synchronized void play(Sound sound, double volume) {
+        if (sound == null) {
+            return;
+        }
+        int voice = 0;
+        for (int i = 0; i < MAX_VOICES; i++) {
+            if (voiceSound[i] == null) {
+                voice = i;
+                break;
+            }
+            if (voicePos[i] > voicePos[voice]) {
+                voice = i; // Steal the voice that has played longest
+            }
+        }
+        voiceSound[voice] = sound;
+        voicePos[voice] = 0;
+        voiceGain[voice] = (float) Math.max(0, Math.min(1, volume));
+        voiceStart[voice] = System.nanoTime();
+    }
+
+    // Silences every voice playing sound
+    public synchronized void stop(Sound sound) {
+        for (int i = 0; i < MAX_VOICES; i++) {
+            if (voiceSound[i] == sound) {
+                voiceSound[i] = null;
+            }
+        }
+    }
+
+    public synchronized String getLatencySummary() {
+        if (latencyCount == 0) {
+            return "sound latency: no effects played";
+        }
+        return String.format("sound latency (%s): %d plays, mean %.1f ms, max %.1f ms",
+            line == null ? "null output" : "line", latencyCount,
+            latencyTotalNanos / 1e6 / latencyCount, latencyMaxNanos / 1e6);
+    }
+
+    public void close() {
+        running = false;
+        LockSupport.unpark(mixerThread);
+        try {
+            mixerThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (line != null) {
+            line.stop();
+            line.close();
+        }
+    }
+
+    private void mixLoop() {
+        int[] mix = new int[BLOCK_FRAMES];
+        byte[] out = new byte[BLOCK_FRAMES * 2];
+        long blockNanos = (long) (BLOCK_FRAMES * 1e9 / SAMPLE_RATE);
+        long deadline = System.nanoTime();
+
+        while (running) {
+            // Audio already queued ahead of this block delays when it is heard
+            long queuedNanos = line == null ? 0
+                : (long) ((line.getBufferSize() - line.available()) / 2 * 1e9 / SAMPLE_RATE);
+
+            synchronized (this) {
+                Arrays.fill(mix, 0);
+                long now = System.nanoTime();
+                for (int v = 0; v < MAX_VOICES; v++) {
+                    Sound sound = voiceSound[v];
+                    if (sound == null) {
+                        continue;
+                    }
+                    if (voiceStart[v] != 0) {
+                        long latency = now - voiceStart[v] + queuedNanos;
+                        latencyCount++;
+                        latencyTotalNanos += latency;
+                        latencyMaxNanos = Math.max(latencyMaxNanos, latency);
+                        voiceStart[v] = 0;
+                    }
+                    int pos = voicePos[v];
+                    int n = Math.min(BLOCK_FRAMES, sound.samples.length - pos);
+                    float gain = voiceGain[v];
+                    for (int i = 0; i < n; i++) {
+                        mix[i] += (int) (sound.samples[pos + i] * gain);
+                    }
+                    voicePos[v] = pos + n;
+                    if (voicePos[v] >= sound.samples.length) {
+                        voiceSound[v] = null;
+                    }
+                }
+            }
+
+            for (int i = 0; i < BLOCK_FRAMES; i++) {
+                int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                out[2 * i] = (byte) s;
+                out[2 * i + 1] = (byte) (s >> 8);
+            }
+
+            if (line != null) {
+                line.write(out, 0, out.length); // Blocks until there is room, pacing the mixer
+            } else {
+                deadline += blockNanos;
+                long wait = deadline - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else {
+                    deadline = System.nanoTime();
+                }
+            }
+        }
+    }
+}
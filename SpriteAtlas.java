@@ -0,0 +1,119 @@
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Packs sprites, each at the size it is drawn on screen, into a single texture with a region
+// table. Drawing sub-rectangles of one image lets Prism keep one texture bound for the bird,
+// pipes and game over sprite instead of switching between separate images every frame.
+// Build and use it on the FX thread.
+public class SpriteAtlas {
+
+    private static final int MAX_WIDTH = 1024;
+    private static final int PADDING = 1; // Keeps filtering from bleeding between neighbours
+
+    // A sprite's rectangle inside the atlas texture
+    public static final class Region {
+        public final int x, y, width, height;
+
+        Region(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final Image texture;
+    private final Map<Image, Map<Long, Region>> regions;
+
+    private SpriteAtlas(Image texture, Map<Image, Map<Long, Region>> regions) {
+        this.texture = texture;
+        this.regions = regions;
+    }
+
+    public Image getTexture() { return texture; }
+
+    // Region for src drawn at width x height, or null if it was not packed
+    public Region find(Image src, int width, int height) {
+        Map<Long, Region> sizes = regions.get(src);
+        return sizes == null ? null : sizes.get(key(width, height));
+    }
+
+    public void draw(GraphicsContext gc, Region r, double x, double y) {
+        gc.drawImage(texture, r.x, r.y, r.width, r.height, x, y, r.width, r.height);
+    }
+
+    private static long key(int width, int height) {
+        return ((long) width << 32) | height;
+    }
+
+    public static class Builder {
+
+        private final List<Image> sources = new ArrayList<>();
+        private final List<int[]> sizes = new ArrayList<>();
+
+        // Adds src at the given on-screen size; missing or unloaded images are skipped
+        public Builder add(Image src, int width, int height) {
+            if (src != null && !src.isError() && src.getProgress() >= 1.0) {
+                sources.add(src);
+                sizes.add(new int[] {width, height});
+            }
+            return this;
+        }
+
+        // Shelf packing, tallest sprites first, then one rasterization pass for the whole texture
+        public SpriteAtlas build() {
+            int n = sources.size();
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(sizes.get(b)[1], sizes.get(a)[1]));
+
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            int shelfX = 0, shelfY = 0, shelfHeight = 0, atlasWidth = 1;
+            for (int i : order) {
+                int w = sizes.get(i)[0] + PADDING;
+                int h = sizes.get(i)[1] + PADDING;
+                if (shelfX + w > MAX_WIDTH && shelfX > 0) {
+                    shelfY += shelfHeight;
+                    shelfX = 0;
+                    shelfHeight = 0;
+                }
+                xs[i] = shelfX;
+                ys[i] = shelfY;
+                shelfX += w;
+                shelfHeight = Math.max(shelfHeight, h);
+                atlasWidth = Math.max(atlasWidth, shelfX);
+            }
+            int atlasHeight = Math.max(1, shelfY + shelfHeight);
+
+            Canvas canvas = new Canvas(atlasWidth, atlasHeight);
+            GraphicsContext gc = canvas.getGraphicsContext2D();
+            Map<Image, Map<Long, Region>> regions = new IdentityHashMap<>();
+            for (int i = 0; i < n; i++) {
+                int w = sizes.get(i)[0];
+                int h = sizes.get(i)[1];
+                gc.drawImage(sources.get(i), xs[i], ys[i], w, h);
+                regions.computeIfAbsent(sources.get(i), k -> new HashMap<>())
+                    .put(key(w, h), new Region(xs[i], ys[i], w, h));
+            }
+
+            SnapshotParameters params = new SnapshotParameters();
+            params.setFill(Color.TRANSPARENT);
+            Image texture = canvas.snapshot(params, new WritableImage(atlasWidth, atlasHeight));
+            return new SpriteAtlas(texture, regions);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Pre-rasterizes images at the exact size they are drawn on screen, so frames can blit
+// them unscaled instead of resampling the full-size source every frame.
+// Scaled copies are kept per source image and size; use it on the FX thread only.
+public class SpriteCache {
+
+    private final Map<Image, Map<Long, Image>> cache = new IdentityHashMap<>();
+
+    // Returns src scaled to width x height, or src itself if it is missing, not loaded yet or already that size
+    public Image get(Image src, int width, int height) {
+        if (src == null || src.isError() || src.getProgress() < 1.0) {
+            return src;
+        }
+        if (src.getWidth() == width && src.getHeight() == height) {
+            return src;
+        }
+
+        Map<Long, Image> sizes = cache.computeIfAbsent(src, k -> new HashMap<>());
+        long key = ((long) width << 32) | height;
+        Image sprite = sizes.get(key);
+        if (sprite == null) {
+            sprite = rasterize(src, width, height);
+            sizes.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    // Draws with the same filtering a scaled drawImage would use, so sprites look identical
+    private static Image rasterize(Image src, int width, int height) {
+        Canvas canvas = new Canvas(width, height);
+        canvas.getGraphicsContext2D().drawImage(src, 0, 0, width, height);
+
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(params, new WritableImage(width, height));
+    }
+}
@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+
+// The bird and pipe sprites the game ships with, the size each is drawn at (for the bird, also
+// its hitbox) and their pixel collision masks. A game names its sprites by index here, so
+// whoever re-simulates it, the game itself or a tool verifying its replay, derives the hitbox
+// and masks from the same bundled files rather than taking them on trust. Sprite files are read
+// from resources/images, so run from the repository root.
+public final class SpriteSet {
+
+    public static final String IMAGE_DIR = "resources/images/";
+    public static final String[] BIRD_FILES = {"paimon.png", "bird.png"};
+    public static final int[] BIRD_WIDTHS = {34, 34};
+    public static final int[] BIRD_HEIGHTS = {35, 24};
+    public static final String[][] PIPE_FILES = { // Pipe sets (0 = green, 1 = blue), top then bottom
+        {"toppipe.png", "bottompipe.png"},
+        {"toppipe_blue.png", "bottompipe_blue.png"}
+    };
+
+    // Masks at the drawn sizes, decoded on first use
+    private static final CollisionMask[] birdMasks = new CollisionMask[BIRD_FILES.length];
+    private static final CollisionMask[][] pipeMasks = new CollisionMask[PIPE_FILES.length][2];
+
+    private SpriteSet() {
+    }
+
+    // Index of the bird drawn at this size, or -1 if no bird is
+    public static int findBird(long width, long height) {
+        for (int i = 0; i < BIRD_FILES.length; i++) {
+            if (BIRD_WIDTHS[i] == width && BIRD_HEIGHTS[i] == height) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static synchronized CollisionMask birdMask(int bird) throws IOException {
+        if (birdMasks[bird] == null) {
+            birdMasks[bird] = CollisionMask.load(Paths.get(IMAGE_DIR + BIRD_FILES[bird]), BIRD_WIDTHS[bird], BIRD_HEIGHTS[bird]);
+        }
+        return birdMasks[bird];
+    }
+
+    // Side 0 is the top pipe, 1 the bottom one
+    public static synchronized CollisionMask pipeMask(int pipes, int side) throws IOException {
+        if (pipeMasks[pipes][side] == null) {
+            pipeMasks[pipes][side] = CollisionMask.load(Paths.get(IMAGE_DIR + PIPE_FILES[pipes][side]),
+                GameSimulation.PIPE_WIDTH, GameSimulation.PIPE_HEIGHT);
+        }
+        return pipeMasks[pipes][side];
+    }
+
+    // Decodes every mask, so later lookups don't touch the disk
+    public static void loadMasks() throws IOException {
+        for (int i = 0; i < BIRD_FILES.length; i++) {
+            birdMask(i);
+        }
+        for (int i = 0; i < PIPE_FILES.length; i++) {
+            pipeMask(i, 0);
+            pipeMask(i, 1);
+        }
+    }
+
+    // Decodes the masks on a background thread so startup doesn't wait for them
+    public static CompletableFuture<Void> loadMasksAsync() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                loadMasks();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot load collision masks: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    // Sets the simulation up for these sprites: the bird's hitbox, then their masks for pixel
+    // collision or inset boxes without
+    public static void apply(GameSimulation sim, int bird, int pipes, boolean pixelCollision) throws IOException {
+        sim.setBirdSize(BIRD_WIDTHS[bird], BIRD_HEIGHTS[bird]);
+        if (pixelCollision) {
+            sim.setCollisionMasks(birdMask(bird), pipeMask(pipes, 0), pipeMask(pipes, 1));
+        } else {
+            sim.setCollisionMasks(null, null, null);
+        }
+    }
+}
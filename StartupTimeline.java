@@ -0,0 +1,30 @@
+import java.lang.management.ManagementFactory;
+
+// Logs how long after JVM launch each startup phase completes, and checks the
+// time to the first rendered frame against a budget.
+public final class StartupTimeline {
+
+    public static final long FIRST_FRAME_BUDGET_MS = 500;
+
+    private static final long JVM_START_MS = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private StartupTimeline() {
+    }
+
+    public static long elapsedMillis() {
+        return System.currentTimeMillis() - JVM_START_MS;
+    }
+
+    public static void mark(String phase) {
+        System.out.printf("[startup] %5d ms  %s%n", elapsedMillis(), phase);
+    }
+
+    public static void firstFrame() {
+        long elapsed = elapsedMillis();
+        mark("first frame");
+        if (elapsed > FIRST_FRAME_BUDGET_MS) {
+            System.err.println("[startup] time to first frame " + elapsed + " ms exceeds budget of "
+                + FIRST_FRAME_BUDGET_MS + " ms");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.Arrays;
+
+// Fixed-memory histogram of durations in nanoseconds. Buckets are log-linear: each power of
+// two is split into 32 sub-buckets, so any recorded value is reported within about 3% while
+// covering the whole range of a long in 1920 counters. Recording never allocates.
+public class TimingHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAGNITUDES = 64 - SUB_BITS;
+
+    private final long[] counts = new long[(MAGNITUDES + 1) * SUB_BUCKETS];
+    private long count;
+    private long total;
+    private long max;
+
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts[index(nanos)]++;
+        count++;
+        total += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    public long getCount() { return count; }
+    public long getMax() { return max; }
+    public double getMean() { return count == 0 ? 0 : (double) total / count; }
+
+    // Value at or below which the given fraction of recordings fall (bucket upper bound, capped at max)
+    public long getPercentile(double fraction) {
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    // Values below 32 get exact buckets; above that, the top 5 bits below the leading one pick the sub-bucket
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (magnitude - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = index / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        long lower = (1L << magnitude) | (sub << (magnitude - SUB_BITS));
+        return lower + (1L << (magnitude - SUB_BITS)) - 1;
+    }
+}